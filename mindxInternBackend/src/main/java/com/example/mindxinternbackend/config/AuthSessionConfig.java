@@ -0,0 +1,194 @@
+package com.example.mindxinternbackend.config;
+
+import com.example.mindxinternbackend.dao.InProcessSessionRepository;
+import com.example.mindxinternbackend.service.AuthSessionStore;
+import com.example.mindxinternbackend.service.CookieAuthSessionStore;
+import com.example.mindxinternbackend.service.CookieLoginTransactionStore;
+import com.example.mindxinternbackend.service.HttpSessionAuthStore;
+import com.example.mindxinternbackend.service.InMemoryLoginTransactionStore;
+import com.example.mindxinternbackend.service.LoginTransactionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.session.MapSession;
+import org.springframework.session.web.http.CookieHttpSessionIdResolver;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chọn nơi lưu phiên đăng nhập, cấu hình mặc định trong auth-session.properties
+ *
+ * - auth.session.mode=servlet (mặc định): HttpSessionAuthStore, phiên trong HttpSession của pod.
+ *   HttpSession do Spring Session cấp (SessionRepositoryFilter), lưu trong InProcessSessionRepository
+ * - auth.session.mode=cookie: CookieAuthSessionStore, phiên trong cookie AES-GCM (AUTH_SESSION_KEYS),
+ *   không cần sticky session/store dùng chung khi scale nhiều replica
+ *
+ * Kèm theo LoginTransactionStore giữ state/nonce của các lượt đăng nhập đang chờ callback:
+ * - auth.login.transaction-store=cookie (mặc định): CookieLoginTransactionStore, cookie AES-GCM ngắn hạn
+ *   mã hóa bằng cùng bộ key với cookie phiên, callback tới replica nào cũng được
+ * - auth.login.transaction-store=memory: InMemoryLoginTransactionStore, cần sticky session khi nhiều replica
+ */
+@Slf4j
+@Configuration
+@PropertySource("classpath:auth-session.properties")
+public class AuthSessionConfig {
+
+    @Value("${auth.session.mode:servlet}")
+    private String mode;
+
+    @Value("${auth.session.cookie.name:MINDX_SESSION}")
+    private String cookieName;
+
+    @Value("${auth.session.cookie.keys:}")
+    private String cookieKeys;
+
+    @Value("${auth.session.cookie.ttl:PT8H}")
+    private Duration cookieTtl;
+
+    @Value("${auth.session.cookie.secure:true}")
+    private boolean cookieSecure;
+
+    @Value("${auth.session.cookie.same-site:None}")
+    private String cookieSameSite;
+
+    @Value("${auth.session.servlet.max-inactive-interval:PT30M}")
+    private Duration servletMaxInactiveInterval;
+
+    @Value("${auth.session.servlet.max-sessions:100000}")
+    private int servletMaxSessions;
+
+    @Value("${auth.session.servlet.shards:16}")
+    private int servletShards;
+
+    @Value("${auth.session.servlet.sweep-tick:PT1S}")
+    private Duration servletSweepTick;
+
+    @Value("${auth.login.transaction-ttl:PT10M}")
+    private Duration loginTransactionTtl;
+
+    @Value("${auth.login.max-pending-transactions:100000}")
+    private int maxPendingLoginTransactions;
+
+    @Value("${auth.login.transaction-store:cookie}")
+    private String loginTransactionStoreMode;
+
+    @Value("${auth.login.cookie.name-prefix:MINDX_LOGIN_}")
+    private String loginCookiePrefix;
+
+    // Cookie phiên và cookie lượt đăng nhập dùng chung một bộ key (kể cả key ngẫu nhiên khi chạy local)
+    private Map<String, SecretKey> sealingKeys;
+
+    @Bean
+    public AuthSessionStore authSessionStore(ObjectMapper objectMapper) {
+        switch (mode) {
+            case "servlet":
+                return new HttpSessionAuthStore();
+            case "cookie":
+                log.info("Using stateless cookie auth sessions");
+                return new CookieAuthSessionStore(cookieName, sealingKeys(), cookieTtl,
+                    cookieSecure, cookieSameSite, objectMapper, Clock.systemUTC());
+            default:
+                throw new IllegalArgumentException("Unknown auth.session.mode: " + mode);
+        }
+    }
+
+    @Bean
+    public LoginTransactionStore loginTransactionStore(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        switch (loginTransactionStoreMode) {
+            case "cookie":
+                return new CookieLoginTransactionStore(loginCookiePrefix, sealingKeys(), loginTransactionTtl,
+                    maxPendingLoginTransactions, cookieSecure, cookieSameSite, objectMapper, Clock.systemUTC(), meterRegistry);
+            case "memory":
+                log.info("Using in-memory login transactions: /login-url and /callback must reach the same pod");
+                return new InMemoryLoginTransactionStore(maxPendingLoginTransactions, loginTransactionTtl,
+                    Clock.systemUTC(), meterRegistry);
+            default:
+                throw new IllegalArgumentException("Unknown auth.login.transaction-store: "
+                    + loginTransactionStoreMode);
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "auth.session.mode", havingValue = "servlet", matchIfMissing = true)
+    public InProcessSessionRepository inProcessSessionRepository(MeterRegistry meterRegistry) {
+        InProcessSessionRepository repository = new InProcessSessionRepository(servletShards, servletMaxSessions,
+            servletMaxInactiveInterval, servletSweepTick, Clock.systemUTC(), meterRegistry);
+        repository.start();
+        return repository;
+    }
+
+    /**
+     * Thay HttpSession của container bằng phiên trong InProcessSessionRepository.
+     * Spring Boot tự đăng ký filter này (spring.session.servlet.filter-order) và cấp CookieSerializer
+     * theo server.servlet.session.cookie.*
+     */
+    @Bean
+    @ConditionalOnProperty(name = "auth.session.mode", havingValue = "servlet", matchIfMissing = true)
+    public SessionRepositoryFilter<MapSession> springSessionRepositoryFilter(
+            InProcessSessionRepository repository, ObjectProvider<CookieSerializer> cookieSerializer) {
+        SessionRepositoryFilter<MapSession> filter = new SessionRepositoryFilter<>(repository);
+        cookieSerializer.ifAvailable(serializer -> {
+            CookieHttpSessionIdResolver resolver = new CookieHttpSessionIdResolver();
+            resolver.setCookieSerializer(serializer);
+            filter.setHttpSessionIdResolver(resolver);
+        });
+        return filter;
+    }
+
+    private synchronized Map<String, SecretKey> sealingKeys() {
+        if (sealingKeys == null) {
+            sealingKeys = parseKeys(cookieKeys);
+        }
+        return sealingKeys;
+    }
+
+    /**
+     * "kid1:base64,kid2:base64" -> kid -> key, giữ thứ tự (key đầu tiên dùng để mã hóa)
+     */
+    private static Map<String, SecretKey> parseKeys(String spec) {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("auth.session.cookie.keys entries must be kid:base64key");
+            }
+            String keyId = entry.substring(0, separator);
+            if (!keyId.matches("[A-Za-z0-9_-]+")) {
+                throw new IllegalArgumentException("Invalid session key id: " + keyId);
+            }
+            byte[] key = Base64.getDecoder().decode(entry.substring(separator + 1));
+            if (key.length != 16 && key.length != 24 && key.length != 32) {
+                throw new IllegalArgumentException("Session key " + keyId + " must be 16, 24 or 32 bytes");
+            }
+            keys.put(keyId, new SecretKeySpec(key, "AES"));
+        }
+
+        if (keys.isEmpty()) {
+            log.warn("auth.session.cookie.keys is empty, using a random key: sessions are lost on restart "
+                + "and are not shared between replicas");
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            keys.put("local", new SecretKeySpec(key, "AES"));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.mindxinternbackend.config;
+
+import com.example.mindxinternbackend.service.IdTokenVerifier;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.Duration;
+
+/**
+ * Tạo IdTokenVerifier với JWKS của IdP được cache trong process
+ * Cấu hình mặc định nằm trong identity-provider.properties (idp.jwks.*)
+ *
+ * - JWKS được giữ trong cache idp.jwks.cache-ttl và được tải lại nền trước khi hết hạn idp.jwks.refresh-ahead,
+ *   nên login không phải chờ tải JWKS
+ * - Gặp kid lạ (IdP vừa xoay key) thì tải lại ngay, tối đa một lần mỗi idp.jwks.min-refresh-interval
+ *   để token giả với kid ngẫu nhiên không biến thành tải JWKS liên tục
+ * - IdP/JWKS không trả lời được: tiếp tục dùng key đã cache thêm tối đa idp.jwks.outage-tolerance
+ * - JWKS được tải qua RestTemplate dùng chung (pool kết nối + timeout của IdentityProviderHttpConfig)
+ */
+@Configuration
+public class IdTokenConfig {
+
+    @Value("${OPENID_CLIENT_ID}")
+    private String clientId;
+
+    @Value("${idp.jwks.cache-ttl:PT15M}")
+    private Duration cacheTtl;
+
+    @Value("${idp.jwks.refresh-timeout:PT5S}")
+    private Duration refreshTimeout;
+
+    @Value("${idp.jwks.refresh-ahead:PT1M}")
+    private Duration refreshAhead;
+
+    @Value("${idp.jwks.min-refresh-interval:PT30S}")
+    private Duration minRefreshInterval;
+
+    @Value("${idp.jwks.outage-tolerance:PT6H}")
+    private Duration outageTolerance;
+
+    @Value("${idp.id-token.clock-skew:PT60S}")
+    private Duration clockSkew;
+
+    @Bean
+    public IdTokenVerifier idTokenVerifier(RestTemplate identityProviderRestTemplate) throws MalformedURLException {
+        JWKSource<SecurityContext> jwkSource = JWKSourceBuilder
+            .<SecurityContext>create(URI.create(OpenIDEndpoints.JWKS_URI).toURL(),
+                new RestTemplateResourceRetriever(identityProviderRestTemplate))
+            .cache(cacheTtl.toMillis(), refreshTimeout.toMillis())
+            .refreshAheadCache(refreshAhead.toMillis(), true)
+            .rateLimited(minRefreshInterval.toMillis())
+            .outageTolerant(outageTolerance.toMillis())
+            .build();
+        return new IdTokenVerifier(jwkSource, OpenIDEndpoints.ISSUER, clientId, clockSkew);
+    }
+
+    private static final class RestTemplateResourceRetriever implements ResourceRetriever {
+
+        private final RestTemplate restTemplate;
+
+        RestTemplateResourceRetriever(RestTemplate restTemplate) {
+            this.restTemplate = restTemplate;
+        }
+
+        @Override
+        public Resource retrieveResource(URL url) throws IOException {
+            try {
+                ResponseEntity<String> response = restTemplate.getForEntity(url.toURI(), String.class);
+                MediaType contentType = response.getHeaders().getContentType();
+                return new Resource(response.getBody(), contentType != null ? contentType.toString() : null);
+            } catch (RestClientException | URISyntaxException e) {
+                throw new IOException("Failed to fetch JWKS from " + url + ": " + e.getMessage(), e);
+            }
+        }
+    }
+}
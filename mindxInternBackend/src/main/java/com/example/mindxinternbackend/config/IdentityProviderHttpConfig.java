@@ -0,0 +1,203 @@
+package com.example.mindxinternbackend.config;
+
+import com.example.mindxinternbackend.service.IdentityProviderGuard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+
+/**
+ * HTTP client dùng chung cho mọi lời gọi tới identity provider (token, userinfo, PAR...)
+ * Cấu hình mặc định nằm trong identity-provider.properties
+ *
+ * - Apache HttpClient 5 với pool kết nối HTTP/1.1 keep-alive: lần login sau dùng lại kết nối TCP+TLS
+ *   đã mở thay vì bắt tay lại từ đầu như SimpleClientHttpRequestFactory của new RestTemplate()
+ * - Giới hạn tổng số kết nối và số kết nối mỗi route, có timeout cho connect, chờ pool và chờ response
+ *   nên IdP treo không giữ thread request mãi mãi
+ * - Kết nối rảnh bị đóng sau idp.http.idle-timeout, kết nối sống quá idp.http.time-to-live bị thay mới
+ * - IdentityProviderGuard (bulkhead + circuit breaker + deadline, idp.resilience.*) bọc các lời gọi;
+ *   timeout của từng request được cắt theo deadline còn lại của guard
+ *
+ * Metrics:
+ * - httpcomponents.httpclient.pool.*{httpclient=identity-provider}: kết nối leased/available, pending, max
+ * - idp.http.connections.opened: số kết nối mới phải mở. Tỉ lệ dùng lại kết nối
+ *   = 1 - opened / count(http.client.requests)
+ * - http.client.requests: thời gian từng request (RestTemplateBuilder của Spring Boot tự gắn observation)
+ */
+@Configuration
+@PropertySource("classpath:identity-provider.properties")
+public class IdentityProviderHttpConfig {
+
+    private static final String POOL_NAME = "identity-provider";
+
+    @Value("${idp.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${idp.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${idp.http.connect-timeout:PT2S}")
+    private Duration connectTimeout;
+
+    @Value("${idp.http.connection-request-timeout:PT1S}")
+    private Duration connectionRequestTimeout;
+
+    @Value("${idp.http.response-timeout:PT5S}")
+    private Duration responseTimeout;
+
+    @Value("${idp.http.idle-timeout:PT30S}")
+    private Duration idleTimeout;
+
+    @Value("${idp.http.time-to-live:PT10M}")
+    private Duration timeToLive;
+
+    @Value("${idp.http.validate-after-inactivity:PT2S}")
+    private Duration validateAfterInactivity;
+
+    @Value("${idp.resilience.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+
+    @Value("${idp.resilience.bulkhead-wait:PT0.1S}")
+    private Duration bulkheadWait;
+
+    @Value("${idp.resilience.circuit.window-size:20}")
+    private int circuitWindowSize;
+
+    @Value("${idp.resilience.circuit.minimum-calls:5}")
+    private int circuitMinimumCalls;
+
+    @Value("${idp.resilience.circuit.failure-rate-threshold:50}")
+    private int circuitFailureRateThreshold;
+
+    @Value("${idp.resilience.circuit.open-duration:PT30S}")
+    private Duration circuitOpenDuration;
+
+    @Value("${idp.resilience.circuit.half-open-probes:2}")
+    private int circuitHalfOpenProbes;
+
+    @Bean
+    public PoolingHttpClientConnectionManager identityProviderConnectionManager(MeterRegistry meterRegistry) {
+        Counter opened = Counter.builder("idp.http.connections.opened")
+            .description("Số kết nối mới được mở tới identity provider")
+            .tag("httpclient", POOL_NAME)
+            .register(meterRegistry);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setConnectionFactory(new CountingConnectionFactory(opened))
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(responseTimeout))
+                .setTimeToLive(TimeValue.of(timeToLive))
+                .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                .build())
+            .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient identityProviderHttpClient(PoolingHttpClientConnectionManager identityProviderConnectionManager) {
+        TimeValue maxKeepAlive = TimeValue.of(idleTimeout);
+        return HttpClients.custom()
+            .setConnectionManager(identityProviderConnectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                .setResponseTimeout(Timeout.of(responseTimeout))
+                .build())
+            // Giữ kết nối theo header Keep-Alive của server nhưng không lâu hơn idle-timeout
+            .setKeepAliveStrategy((response, context) -> DefaultConnectionKeepAliveStrategy.INSTANCE
+                .getKeepAliveDuration(response, context).min(maxKeepAlive))
+            // Không tự retry (mặc định HttpClient retry 503/429 và lỗi I/O của GET): IdentityProviderGuard
+            // quyết định khi nào gọi lại, retry ngầm chỉ làm IdP đang quá tải nhận thêm request
+            .disableAutomaticRetries()
+            .evictIdleConnections(maxKeepAlive)
+            .evictExpiredConnections()
+            .build();
+    }
+
+    @Bean
+    public IdentityProviderGuard identityProviderGuard(MeterRegistry meterRegistry) {
+        return new IdentityProviderGuard(
+            maxConcurrentCalls,
+            bulkheadWait,
+            responseTimeout,
+            circuitWindowSize,
+            circuitMinimumCalls,
+            circuitFailureRateThreshold,
+            circuitOpenDuration,
+            circuitHalfOpenProbes,
+            meterRegistry
+        );
+    }
+
+    /**
+     * RestTemplate duy nhất trong ứng dụng, dùng bởi OAuth2TokenExchangeService và PARService
+     */
+    @Bean
+    public RestTemplate identityProviderRestTemplate(RestTemplateBuilder restTemplateBuilder,
+                                                     CloseableHttpClient identityProviderHttpClient,
+                                                     IdentityProviderGuard identityProviderGuard) {
+        return restTemplateBuilder
+            .requestFactory(() -> requestFactory(identityProviderHttpClient, identityProviderGuard))
+            .build();
+    }
+
+    private HttpComponentsClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient,
+                                                                  IdentityProviderGuard guard) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        // Timeout của từng request bị cắt theo deadline còn lại của thao tác đang chạy
+        requestFactory.setHttpContextFactory(
+            (method, uri) -> guard.httpContext(connectionRequestTimeout, responseTimeout));
+        return requestFactory;
+    }
+
+    /**
+     * Đếm số kết nối mới được tạo; kết nối lấy lại từ pool không đi qua factory này
+     */
+    private static final class CountingConnectionFactory implements HttpConnectionFactory<ManagedHttpClientConnection> {
+
+        private final Counter opened;
+
+        CountingConnectionFactory(Counter opened) {
+            this.opened = opened;
+        }
+
+        @Override
+        public ManagedHttpClientConnection createConnection(Socket socket) throws IOException {
+            opened.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+        }
+
+        @Override
+        public ManagedHttpClientConnection createConnection(SSLSocket sslSocket, Socket socket) throws IOException {
+            opened.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(sslSocket, socket);
+        }
+    }
+}
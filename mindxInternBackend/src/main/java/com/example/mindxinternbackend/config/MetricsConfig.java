@@ -0,0 +1,21 @@
+package com.example.mindxinternbackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * Nạp cấu hình mặc định cho actuator/metrics từ metrics.properties
+ * (application*.yml không được commit nên không để các giá trị này ở đó)
+ *
+ * Các meter chính:
+ * - student.dao{operation}: thời gian từng thao tác của StudentDao (MeteredStudentDao)
+ * - student.service{class, method}: thời gian các method của StudentService (@Timed)
+ * - student.service.not_found{operation}, student.service.validation_failures{operation}
+ * - student.store.size: số student hiện có
+ * - student.response_cache.requests{result=hit|miss}, student.response_cache.hit_ratio,
+ *   student.response_cache.bytes, student.response_cache.evictions: cache response của StudentResponseCache
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig {
+}
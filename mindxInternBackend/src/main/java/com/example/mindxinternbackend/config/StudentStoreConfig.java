@@ -0,0 +1,87 @@
+package com.example.mindxinternbackend.config;
+
+import com.example.mindxinternbackend.dao.ChangePublishingStudentDao;
+import com.example.mindxinternbackend.dao.ColumnarStudentDao;
+import com.example.mindxinternbackend.dao.DurableStudentDao;
+import com.example.mindxinternbackend.dao.MeteredStudentDao;
+import com.example.mindxinternbackend.dao.StudentChangeListeners;
+import com.example.mindxinternbackend.dao.StudentDao;
+import com.example.mindxinternbackend.dao.StudentDaoImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Chọn backend lưu trữ Student
+ *
+ * - student.store.mode=memory (mặc định): StudentDaoImpl, object Student + các index concurrent
+ * - student.store.mode=columnar: ColumnarStudentDao, lưu theo cột, ít bộ nhớ mỗi dòng hơn nhiều
+ * - student.store.durable=false (mặc định): chỉ in-memory, mất dữ liệu khi restart pod
+ * - student.store.durable=true: DurableStudentDao ghi log + snapshot vào student.store.dir
+ *
+ * Store nào cũng được bọc bởi ChangePublishingStudentDao để báo thay đổi cho các listener đã đăng ký
+ * trong StudentChangeListeners (change feed SSE, cache response), và ngoài cùng là MeteredStudentDao
+ * để đo thời gian từng thao tác.
+ */
+@Slf4j
+@Configuration
+public class StudentStoreConfig {
+
+    @Value("${student.store.mode:memory}")
+    private String mode;
+
+    @Value("${student.store.durable:false}")
+    private boolean durable;
+
+    @Value("${student.store.dir:data/students}")
+    private String directory;
+
+    @Value("${student.store.compact-threshold-bytes:16777216}")
+    private long compactThresholdBytes;
+
+    @Value("${student.store.compact-interval:PT1M}")
+    private Duration compactInterval;
+
+    @Bean
+    public StudentChangeListeners studentChangeListeners() {
+        return new StudentChangeListeners();
+    }
+
+    @Bean
+    public StudentDao studentDao(StudentChangeListeners changeListeners, MeterRegistry meterRegistry)
+            throws IOException {
+        StudentDao publishing = new ChangePublishingStudentDao(openStore(), changeListeners);
+        return new MeteredStudentDao(publishing, meterRegistry);
+    }
+
+    private StudentDao openStore() throws IOException {
+        if (!durable) {
+            return createStore(true);
+        }
+
+        log.info("Using durable {} student store at {}", mode, directory);
+        return DurableStudentDao.open(
+            createStore(false),
+            Path.of(directory),
+            compactThresholdBytes,
+            compactInterval
+        );
+    }
+
+    private StudentDao createStore(boolean seedSampleData) {
+        switch (mode) {
+            case "memory":
+                return new StudentDaoImpl(seedSampleData);
+            case "columnar":
+                return new ColumnarStudentDao(seedSampleData);
+            default:
+                throw new IllegalArgumentException("Unknown student.store.mode: " + mode);
+        }
+    }
+}
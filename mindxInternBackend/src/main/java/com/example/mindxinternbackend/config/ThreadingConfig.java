@@ -0,0 +1,28 @@
+package com.example.mindxinternbackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * Nạp cấu hình chế độ thread từ threading.properties
+ * (application*.yml không được commit nên không để các giá trị này ở đó)
+ *
+ * - VIRTUAL_THREADS_ENABLED=true (mặc định): Tomcat, task executor và scheduler của Spring dùng virtual thread,
+ *   VirtualThreadPinningMonitor theo dõi các lần virtual thread bị ghim vào carrier thread
+ * - VIRTUAL_THREADS_ENABLED=false: quay về thread pool platform như trước
+ */
+@Configuration
+@PropertySource("classpath:threading.properties")
+public class ThreadingConfig {
+
+    // Khai báo bằng @Bean thay vì @Component: điều kiện được xét sau khi threading.properties đã được nạp
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(meterRegistry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.mindxinternbackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Chẩn đoán pinning khi chạy virtual thread: nghe event JFR jdk.VirtualThreadPinned
+ * (virtual thread block khi đang giữ monitor synchronized hoặc trong native frame,
+ * nên chiếm luôn carrier thread và làm giảm số request xử lý song song).
+ *
+ * Mỗi event được ghi vào timer "jvm.threads.virtual.pinned" và log WARN kèm vài frame đầu
+ * của stack trace để tìm ra đoạn code cần đổi synchronized sang ReentrantLock.
+ * Chỉ được tạo khi spring.threads.virtual.enabled=true (xem ThreadingConfig).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${threads.virtual.pinned-threshold:PT0.02S}")
+    private Duration threshold;
+
+    private RecordingStream recording;
+
+    @PostConstruct
+    void start() {
+        Timer pinned = Timer.builder("jvm.threads.virtual.pinned")
+            .description("Thời gian virtual thread bị ghim vào carrier thread")
+            .register(meterRegistry);
+
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, event -> {
+            pinned.record(event.getDuration());
+            log.warn("Virtual thread pinned for {} ms on {}\n{}",
+                event.getDuration().toMillis(), event.getThread() == null ? "?" : event.getThread().getJavaName(),
+                topFrames(event));
+        });
+        recording.startAsync();
+        log.info("Virtual threads enabled, pinning monitor threshold {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        recording.close();
+    }
+
+    private static String topFrames(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Math.min(frames.size(), LOGGED_FRAMES); i++) {
+            RecordedFrame frame = frames.get(i);
+            builder.append("\tat ")
+                .append(frame.getMethod().getType().getName())
+                .append('.')
+                .append(frame.getMethod().getName())
+                .append(':')
+                .append(frame.getLineNumber())
+                .append('\n');
+        }
+        return builder.toString();
+    }
+}
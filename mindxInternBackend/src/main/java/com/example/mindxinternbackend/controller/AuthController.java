@@ -4,6 +4,8 @@ import com.example.mindxinternbackend.config.OpenIDEndpoints;
 import com.example.mindxinternbackend.dto.AuthResponse;
 import com.example.mindxinternbackend.dto.CallbackRequest;
 import com.example.mindxinternbackend.service.OAuth2TokenExchangeService;
+import com.example.mindxinternbackend.service.AuthSessionStore;
+import com.example.mindxinternbackend.service.LoginTransactionStore;
 import com.example.mindxinternbackend.service.PARService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,7 +16,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.UUID;
 
 @Slf4j
 @RestController
@@ -24,6 +25,8 @@ public class AuthController {
 
     private final OAuth2TokenExchangeService oAuth2TokenExchangeService;
     private final PARService parService;
+    private final AuthSessionStore authSessionStore;
+    private final LoginTransactionStore loginTransactionStore;
 
     @Value("${OPENID_CLIENT_ID}")
     private String clientId;
@@ -42,27 +45,43 @@ public class AuthController {
             @RequestParam(required = false, defaultValue = "https://onboarding.mindx.edu.vn/auth/callback") String redirectUri,
             @RequestParam(required = false) String state,
             @RequestParam(required = false, defaultValue = "false") boolean usePAR,
-            @RequestParam(required = false) String prompt) {
+            @RequestParam(required = false) String prompt,
+            jakarta.servlet.http.HttpServletRequest httpRequest,
+            jakarta.servlet.http.HttpServletResponse httpResponse) {
         
-        // Generate state nếu không có
-        if (state == null || state.isEmpty()) {
-            state = UUID.randomUUID().toString();
+        // PAR không kèm state/prompt của client: thử lấy request_uri đã push sẵn (không chờ IdP)
+        PARService.PushedRequest pushed = null;
+        if (usePAR && (state == null || state.isEmpty()) && (prompt == null || prompt.isEmpty())) {
+            pushed = parService.takePooled(redirectUri);
         }
-        
-        // Generate nonce cho OpenID Connect
-        String nonce = UUID.randomUUID().toString();
+
+        // Lưu state -> nonce/redirectUri để kiểm tra ở callback (state tự sinh nếu không có)
+        LoginTransactionStore.Transaction transaction = pushed != null
+            ? loginTransactionStore.begin(httpRequest, httpResponse, redirectUri, pushed.state(), pushed.nonce())
+            : loginTransactionStore.begin(httpRequest, httpResponse, redirectUri, state, null);
+        if (transaction == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new AuthResponse(
+                false,
+                "State is already in use",
+                null
+            ));
+        }
+        state = transaction.state();
+        String nonce = transaction.nonce();
         
         String loginUrl;
         
         if (usePAR) {
-            // Sử dụng Pushed Authorization Request
-            String requestUri = parService.pushAuthorizationRequest(redirectUri, state, nonce, prompt);
+            // Sử dụng Pushed Authorization Request, push đồng bộ nếu pool không có sẵn
+            String requestUri = pushed != null
+                ? pushed.requestUri()
+                : parService.pushAuthorizationRequest(redirectUri, state, nonce, prompt);
             if (requestUri != null) {
                 loginUrl = OpenIDEndpoints.AUTHORIZATION_ENDPOINT + "?client_id=" + 
                           URLEncoder.encode(clientId, StandardCharsets.UTF_8) +
                           "&request_uri=" + URLEncoder.encode(requestUri, StandardCharsets.UTF_8);
             } else {
-                // Fallback về cách thông thường nếu PAR fail
+                // Fallback về cách thông thường nếu PAR fail (hoặc IdP đang lỗi, khi đó PARService trả null ngay)
                 loginUrl = buildStandardAuthorizationUrl(redirectUri, state, nonce, prompt);
             }
         } else {
@@ -104,10 +123,11 @@ public class AuthController {
      * Get current authenticated user information từ session
      */
     @GetMapping("/user/me")
-    public ResponseEntity<AuthResponse> getCurrentUser(jakarta.servlet.http.HttpServletRequest request) {
-        // Lấy user từ session (đã lưu sau khi callback thành công)
-        Object userObj = request.getSession().getAttribute("user");
-        if (userObj == null) {
+    public ResponseEntity<AuthResponse> getCurrentUser(jakarta.servlet.http.HttpServletRequest request,
+                                                       jakarta.servlet.http.HttpServletResponse response) {
+        // Lấy user từ phiên (đã lưu sau khi callback thành công)
+        AuthResponse.UserInfo userInfo = authSessionStore.currentUser(request, response);
+        if (userInfo == null) {
             return ResponseEntity.status(401).body(new AuthResponse(
                 false,
                 "User not authenticated",
@@ -115,20 +135,10 @@ public class AuthController {
             ));
         }
 
-        // Convert từ Map sang AuthResponse
-        if (userObj instanceof AuthResponse.UserInfo) {
-            AuthResponse.UserInfo userInfo = (AuthResponse.UserInfo) userObj;
-            return ResponseEntity.ok(new AuthResponse(
-                true,
-                "User retrieved successfully",
-                userInfo
-            ));
-        }
-
-        return ResponseEntity.status(401).body(new AuthResponse(
-            false,
-            "Invalid user session",
-            null
+        return ResponseEntity.ok(new AuthResponse(
+            true,
+            "User retrieved successfully",
+            userInfo
         ));
     }
 
@@ -136,9 +146,10 @@ public class AuthController {
      * Check if user is authenticated
      */
     @GetMapping("/check")
-    public ResponseEntity<AuthResponse> checkAuth(jakarta.servlet.http.HttpServletRequest request) {
-        Object userObj = request.getSession().getAttribute("user");
-        if (userObj == null) {
+    public ResponseEntity<AuthResponse> checkAuth(jakarta.servlet.http.HttpServletRequest request,
+                                                  jakarta.servlet.http.HttpServletResponse response) {
+        AuthResponse.UserInfo userInfo = authSessionStore.currentUser(request, response);
+        if (userInfo == null) {
             return ResponseEntity.status(401).body(new AuthResponse(
                 false,
                 "User is not authenticated",
@@ -146,19 +157,10 @@ public class AuthController {
             ));
         }
 
-        if (userObj instanceof AuthResponse.UserInfo) {
-            AuthResponse.UserInfo userInfo = (AuthResponse.UserInfo) userObj;
-            return ResponseEntity.ok(new AuthResponse(
-                true,
-                "User is authenticated",
-                userInfo
-            ));
-        }
-
-        return ResponseEntity.status(401).body(new AuthResponse(
-            false,
-            "Invalid user session",
-            null
+        return ResponseEntity.ok(new AuthResponse(
+            true,
+            "User is authenticated",
+            userInfo
         ));
     }
 
@@ -174,7 +176,8 @@ public class AuthController {
     @PostMapping("/callback")
     public ResponseEntity<AuthResponse> handleCallback(
             @RequestBody CallbackRequest request,
-            jakarta.servlet.http.HttpServletRequest httpRequest) {
+            jakarta.servlet.http.HttpServletRequest httpRequest,
+            jakarta.servlet.http.HttpServletResponse httpResponse) {
         if (request.getCode() == null || request.getCode().isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new AuthResponse(
                 false,
@@ -183,34 +186,26 @@ public class AuthController {
             ));
         }
 
-        // Sử dụng redirectUri từ request hoặc default
-        String redirectUri = request.getRedirectUri();
-        if (redirectUri == null || redirectUri.isEmpty()) {
-            // Default redirect URI (phải match với redirect URI đã đăng ký)
-            redirectUri = "https://onboarding.mindx.edu.vn/auth/callback";
-        }
-
-        // Exchange code for user info
-        OAuth2TokenExchangeService.TokenExchangeResult result = oAuth2TokenExchangeService.exchangeCodeForUserInfo(
+        // Kiểm tra state/redirectUri và exchange code; callback trùng dùng chung một lượt exchange
+        OAuth2TokenExchangeService.CallbackResult result = oAuth2TokenExchangeService.completeLogin(
             request.getCode(),
-            redirectUri
+            request.getState(),
+            request.getRedirectUri(),
+            httpRequest,
+            httpResponse
         );
 
-        AuthResponse response = result.getAuthResponse();
-        if (response.isSuccess() && response.getUser() != null) {
-            // Lưu user và id_token vào session để dùng cho logout
-            httpRequest.getSession().setAttribute("user", response.getUser());
-            httpRequest.getSession().setAttribute("authenticated", true);
-            if (result.getIdToken() != null) {
-                httpRequest.getSession().setAttribute("id_token", result.getIdToken());
-            }
+        AuthResponse response = result.authResponse();
+        if (result.isSuccess()) {
+            // Lưu user và id_token vào phiên để dùng cho logout
+            authSessionStore.signIn(httpRequest, httpResponse, response.getUser(), result.idToken());
             
             log.info("User login successful: {}", response.getUser().getEmail());
             
             return ResponseEntity.ok(response);
         } else {
             log.warn("User login failed: {}", response.getMessage());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            return ResponseEntity.status(result.status()).body(response);
         }
     }
 
@@ -226,11 +221,8 @@ public class AuthController {
      */
     @GetMapping("/get-logout")
     public ResponseEntity<AuthResponse> getLogoutUrl(jakarta.servlet.http.HttpServletRequest request) {
-        // Lấy id_token từ session
-        String idToken = null;
-        if (request.getSession() != null) {
-            idToken = (String) request.getSession().getAttribute("id_token");
-        }
+        // Lấy id_token từ phiên
+        String idToken = authSessionStore.idToken(request);
         
         // Tạo logout URL với id_token_hint và client_id
         // Frontend sẽ tự thêm post_logout_redirect_uri khi redirect
@@ -248,17 +240,14 @@ public class AuthController {
      * Frontend gọi endpoint này sau khi đã logout thành công trên MindX IdP
      */
     @PostMapping("/logout")
-    public ResponseEntity<AuthResponse> logout(jakarta.servlet.http.HttpServletRequest request) {
-        // Lấy user info trước khi xóa session
-        if (request.getSession() != null) {
-            Object userObj = request.getSession().getAttribute("user");
-            if (userObj instanceof AuthResponse.UserInfo) {
-                log.info("User logout: {}", ((AuthResponse.UserInfo) userObj).getEmail());
-            }
-            // Xóa session local
-            request.getSession().invalidate();
-            log.info("Local session invalidated");
+    public ResponseEntity<AuthResponse> logout(jakarta.servlet.http.HttpServletRequest request,
+                                               jakarta.servlet.http.HttpServletResponse response) {
+        // Xóa phiên local, lấy user info để ghi log
+        AuthResponse.UserInfo userInfo = authSessionStore.signOut(request, response);
+        if (userInfo != null) {
+            log.info("User logout: {}", userInfo.getEmail());
         }
+        log.info("Local session invalidated");
         
         return ResponseEntity.ok(new AuthResponse(
             true,
@@ -1,11 +1,22 @@
 package com.example.mindxinternbackend.controller;
 
+import com.example.mindxinternbackend.dto.StudentBatchOperation;
+import com.example.mindxinternbackend.dto.StudentBatchResult;
+import com.example.mindxinternbackend.dto.StudentPage;
+import com.example.mindxinternbackend.dto.StudentStats;
 import com.example.mindxinternbackend.entity.Student;
+import com.example.mindxinternbackend.service.StudentChangeFeed;
+import com.example.mindxinternbackend.service.StudentResponseCache;
 import com.example.mindxinternbackend.service.StudentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -15,6 +26,8 @@ import java.util.List;
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentChangeFeed studentChangeFeed;
+    private final StudentResponseCache studentResponseCache;
 
     // CREATE (POST)
     @PostMapping
@@ -23,18 +36,84 @@ public class StudentController {
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
-    // READ ALL (GET)
+    // BATCH (POST) - nhiều thao tác create/update/delete trong một request
+    @PostMapping("/batch")
+    public ResponseEntity<List<StudentBatchResult>> applyBatch(@RequestBody List<StudentBatchOperation> operations) {
+        List<StudentBatchResult> results = studentService.applyBatch(operations);
+        return ResponseEntity.ok(results);
+    }
+
+    // READ ALL (GET) - có thể lọc: ?gender=NU&minAge=20&maxAge=25
+    // Body JSON (và bản gzip) lấy từ StudentResponseCache, chỉ serialize lại sau khi dữ liệu đổi
+    // Hỗ trợ If-None-Match: không có gì thay đổi thì trả 304 mà không cần tới cache
     @GetMapping
-    public ResponseEntity<List<Student>> getAllStudents() {
-        List<Student> students = studentService.findAllStudents();
+    public ResponseEntity<byte[]> getAllStudents(
+            @RequestParam(required = false) Student.Gender gender,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = studentService.collectionETag();
+        if (request.checkNotModified(StudentResponseCache.etagFor(etag, gzip))) {
+            return null;
+        }
+        return cachedJson(studentResponseCache.students(etag, gender, minAge, maxAge, gzip));
+    }
+
+    // READ PAGE (GET) - keyset pagination: ?after=<id>&limit=N
+    @GetMapping(params = "limit")
+    public ResponseEntity<StudentPage> getStudentPage(
+            @RequestParam(required = false) Integer after,
+            @RequestParam int limit) {
+        StudentPage page = studentService.findStudentPage(after, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    // SEARCH (GET) - tìm theo tên không phân biệt dấu: ?q=hoang ngoc&limit=20
+    @GetMapping("/search")
+    public ResponseEntity<List<Student>> searchStudents(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        List<Student> students = studentService.searchStudents(q, limit);
         return ResponseEntity.ok(students);
     }
 
+    // STATS (GET) - tổng số, số lượng theo gender, histogram tuổi
+    @GetMapping("/stats")
+    public ResponseEntity<StudentStats> getStatistics() {
+        StudentStats stats = studentService.getStatistics();
+        return ResponseEntity.ok(stats);
+    }
+
+    // CHANGES (GET) - SSE, đẩy event create/update/delete thay cho polling
+    // EventSource tự gửi lại Last-Event-ID khi kết nối lại để nhận tiếp các event bị lỡ
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return studentChangeFeed.subscribe(lastEventId);
+    }
+
+    // EXPORT (GET) - NDJSON streaming, mỗi dòng một student
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportStudents() {
+        StreamingResponseBody body = studentService::exportStudents;
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
     // READ BY ID (GET)
     @GetMapping("/{id}")
-    public ResponseEntity<Student> getStudentById(@PathVariable Integer id) {
-        Student student = studentService.findStudentById(id);
-        return ResponseEntity.ok(student);
+    public ResponseEntity<byte[]> getStudentById(
+            @PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = studentService.studentETag(id);
+        if (etag != null && request.checkNotModified(StudentResponseCache.etagFor(etag, gzip))) {
+            return null;
+        }
+        return cachedJson(studentResponseCache.student(etag, id, gzip));
     }
 
     // UPDATE (PUT)
@@ -50,4 +129,33 @@ public class StudentController {
         studentService.deleteStudent(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
-}
\ No newline at end of file
+
+    private static ResponseEntity<byte[]> cachedJson(StudentResponseCache.Representation representation) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (representation.etag() != null) {
+            response.eTag(representation.etag());
+        }
+        if (representation.gzip()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(representation.body());
+    }
+
+    /**
+     * Accept-Encoding có gzip (và không phải gzip;q=0)
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
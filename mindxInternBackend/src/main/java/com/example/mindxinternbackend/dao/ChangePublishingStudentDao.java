@@ -0,0 +1,186 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentChangeEvent;
+import com.example.mindxinternbackend.dto.StudentStats;
+import com.example.mindxinternbackend.entity.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Bọc một StudentDao và báo mỗi thay đổi đã áp dụng cho StudentChangeListener.
+ *
+ * Ghi lên cùng một id được tuần tự hóa bằng lock theo stripe (id % STRIPES), và event được phát
+ * khi vẫn giữ lock, nên thứ tự event của một id luôn khớp thứ tự ghi và trạng thái cuối cùng.
+ * Kể cả create: id được cấp trước rồi bản ghi mới được ghi dưới lock của id đó.
+ * Các id khác stripe vẫn ghi song song. Nằm ngoài cùng (bọc cả DurableStudentDao) nên event chỉ
+ * được phát sau khi thay đổi đã bền vững.
+ */
+public class ChangePublishingStudentDao implements StudentDao, Closeable {
+
+    private static final int STRIPES = 64;
+
+    private final StudentDao delegate;
+    private final StudentChangeListener listener;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public ChangePublishingStudentDao(StudentDao delegate, StudentChangeListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Reads: đi thẳng vào delegate
+    // ----------------------------------------------------------------------------------------------
+
+    @Override
+    public Student findById(Integer id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Student> findPage(Integer afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Student> findByFilter(Student.Gender gender, Integer minAge, Integer maxAge) {
+        return delegate.findByFilter(gender, minAge, maxAge);
+    }
+
+    @Override
+    public List<Student> searchByName(String query, int limit) {
+        return delegate.searchByName(query, limit);
+    }
+
+    @Override
+    public StudentStats stats() {
+        return delegate.stats();
+    }
+
+    @Override
+    public long collectionVersion() {
+        return delegate.collectionVersion();
+    }
+
+    @Override
+    public long recordVersion(Integer id) {
+        return delegate.recordVersion(id);
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Writes
+    // ----------------------------------------------------------------------------------------------
+
+    @Override
+    public void create(Student student) {
+        // Bản ghi thấy được qua findById/findAll ngay khi được ghi và id tăng dần nên đoán được: giữ lock của id
+        // từ lúc ghi tới lúc phát CREATED, để update/delete song song lên id mới không phát event trước nó
+        int id = delegate.allocateId();
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            student.setId(id);
+            delegate.restore(student);
+            listener.onChange(StudentChangeEvent.Type.CREATED, id, copyOf(id, student));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void update(Integer id, Student student) {
+        if (id == null) {
+            return;
+        }
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            if (delegate.findById(id) == null) {
+                return;
+            }
+            delegate.update(id, student);
+            listener.onChange(StudentChangeEvent.Type.UPDATED, id, copyOf(id, student));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Integer id) {
+        if (id == null) {
+            return;
+        }
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            if (delegate.findById(id) == null) {
+                return;
+            }
+            delegate.delete(id);
+            listener.onChange(StudentChangeEvent.Type.DELETED, id, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void restore(Student student) {
+        Integer id = student.getId();
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            boolean existed = delegate.findById(id) != null;
+            delegate.restore(student);
+            listener.onChange(existed ? StudentChangeEvent.Type.UPDATED : StudentChangeEvent.Type.CREATED,
+                id, copyOf(id, student));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int allocateId() {
+        return delegate.allocateId();
+    }
+
+    @Override
+    public void advanceIdSequence(int lastAssignedId) {
+        delegate.advanceIdSequence(lastAssignedId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private ReentrantLock stripeOf(int id) {
+        return stripes[Math.floorMod(id, STRIPES)];
+    }
+
+    /**
+     * update thay toàn bộ field nên object request (kèm id) chính là trạng thái sau khi ghi;
+     * copy để caller sửa object của mình không làm đổi event
+     */
+    private static Student copyOf(Integer id, Student student) {
+        return new Student(id, student.getName(), student.getAge(), student.getGender());
+    }
+}
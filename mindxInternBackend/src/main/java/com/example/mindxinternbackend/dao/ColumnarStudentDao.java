@@ -0,0 +1,545 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentStats;
+import com.example.mindxinternbackend.entity.Student;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * StudentDao lưu dữ liệu theo cột thay vì mỗi dòng một object Student:
+ *
+ * - ids: int[] sắp xếp tăng dần (id luôn được cấp tăng dần nên create chỉ là append), tìm theo id bằng binary search
+ * - ages: byte[] (Byte.MIN_VALUE = null)
+ * - gender: mỗi giá trị Gender một BitSet, vừa là cột vừa là bitmap index
+ * - name: mã int trỏ vào StudentNameDictionary (UTF-8 trong arena off-heap, mỗi tên khác nhau lưu một lần);
+ *   tên không còn dòng nào dùng (đổi tên, xóa) được dọn khi chiếm quá nửa arena
+ * - live: BitSet đánh dấu dòng còn sống; delete chỉ xóa bit, dòng chết được dọn khi chiếm quá nửa
+ * - versions: long[] version của lần ghi cuối cùng của từng dòng (cho ETag), lấy từ version của cả tập
+ *
+ * Object Student chỉ được tạo ra khi trả kết quả (API edge). Lọc theo gender/tuổi là quét cột byte/bitset
+ * liên tục trong bộ nhớ. Mọi thao tác dùng một ReadWriteLock: nhiều reader song song, writer độc quyền.
+ * Riêng findAll giữ lại danh sách đã materialize (ReadOnlyStudent) theo version của cả tập: các lần đọc tới khi
+ * có ghi mới chỉ đọc một field volatile, không lock, không tạo object. Danh sách nằm sau SoftReference để
+ * GC lấy lại được khi thiếu heap, không làm mất lợi thế bộ nhớ của lưu theo cột.
+ *
+ * So sánh bộ nhớ (1 triệu dòng BenchmarkData, ~2.400 tên khác nhau, JDK 21, G1, compressed oops), đo bằng
+ * heap đã dùng sau full GC, tái hiện bằng StudentStoreFootprintBenchmark:
+ * - StudentDaoImpl: ~366 byte/dòng (Student + Integer + String, node ConcurrentHashMap, skip list,
+ *   các secondary index, index trigram và snapshot của findAll)
+ * - ColumnarStudentDao: ~79 byte/dòng heap, trong đó các cột chỉ ~9 byte/dòng; phần còn lại là
+ *   tập id theo tên của index trigram dùng cho search. Arena tên off-heap chỉ vài chục KB
+ */
+public class ColumnarStudentDao implements StudentDao {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int STREAM_CHUNK_SIZE = 1024;
+    private static final byte NULL_AGE = Byte.MIN_VALUE;
+    private static final int NULL_NAME = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private byte[] ages = new byte[INITIAL_CAPACITY];
+    private int[] nameCodes = new int[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private final Map<Student.Gender, BitSet> genders = new EnumMap<>(Student.Gender.class);
+    private BitSet live = new BitSet();
+    private int rowCount;
+    private int liveCount;
+    private int nextId = 1;
+    /** chỉ tăng khi giữ write lock; volatile để collectionVersion() đọc không cần lock */
+    private volatile long version;
+
+    private record Materialized(long version, List<Student> students) {
+    }
+
+    /** Kết quả findAll của lần materialize gần nhất, chỉ dùng khi version còn trùng */
+    private volatile SoftReference<Materialized> materialized = new SoftReference<>(null);
+
+    private final StudentNameDictionary names = new StudentNameDictionary();
+    private final StudentNameIndex nameIndex = new StudentNameIndex();
+    private final StudentStatsCounter stats = new StudentStatsCounter();
+
+    public ColumnarStudentDao() {
+        this(true);
+    }
+
+    /**
+     * @param seedSampleData - true thì thêm sẵn 3 sinh viên mẫu giống StudentDaoImpl
+     */
+    public ColumnarStudentDao(boolean seedSampleData) {
+        for (Student.Gender gender : Student.Gender.values()) {
+            genders.put(gender, new BitSet());
+        }
+        if (seedSampleData) {
+            StudentDaoImpl.sampleStudents().forEach(this::create);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Reads
+    // ----------------------------------------------------------------------------------------------
+
+    @Override
+    public Student findById(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int row = liveRowOf(id);
+            return row < 0 ? null : materialize(row);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Student> findAll() {
+        // version chỉ tăng khi writer giữ write lock, danh sách được dựng dưới read lock: version còn trùng
+        // nghĩa là chưa có lần ghi nào hoàn tất sau lần materialize đó
+        Materialized cached = materialized.get();
+        if (cached != null && cached.version() == version) {
+            return cached.students();
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            long current = version;
+            cached = materialized.get();
+            if (cached != null && cached.version() == current) {
+                return cached.students();
+            }
+            Student[] result = new Student[liveCount];
+            int size = 0;
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                result[size++] = materialize(row);
+            }
+            List<Student> students = Collections.unmodifiableList(Arrays.asList(result));
+            materialized = new SoftReference<>(new Materialized(current, students));
+            return students;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Student> findPage(Integer afterId, int limit) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int start = afterId == null ? 0 : firstRowAfter(afterId);
+            List<Student> result = new ArrayList<>(Math.min(limit, 64));
+            for (int row = live.nextSetBit(start); row >= 0 && result.size() < limit; row = live.nextSetBit(row + 1)) {
+                result.add(materialize(row));
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        // Materialize từng chunk theo keyset để bộ nhớ không tăng theo số dòng và không giữ lock
+        // trong lúc consumer ghi ra socket; vì vậy export ở chế độ này không phải một snapshot duy nhất
+        return Stream.iterate(
+                findPage(null, STREAM_CHUNK_SIZE),
+                page -> !page.isEmpty(),
+                page -> findPage(page.get(page.size() - 1).getId(), STREAM_CHUNK_SIZE))
+            .flatMap(List::stream);
+    }
+
+    @Override
+    public List<Student> findByFilter(Student.Gender gender, Integer minAge, Integer maxAge) {
+        if (gender == null && minAge == null && maxAge == null) {
+            return findAll();
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            BitSet candidates = (BitSet) live.clone();
+            if (gender != null) {
+                candidates.and(genders.get(gender));
+            }
+
+            List<Student> result = new ArrayList<>();
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (minAge != null || maxAge != null) {
+                    byte age = ages[row];
+                    if (age == NULL_AGE
+                            || (minAge != null && age < minAge)
+                            || (maxAge != null && age > maxAge)) {
+                        continue;
+                    }
+                }
+                result.add(materialize(row));
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Student> searchByName(String query, int limit) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            List<Student> result = new ArrayList<>();
+            for (Integer id : nameIndex.search(query, limit)) {
+                int row = liveRowOf(id);
+                if (row >= 0) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public StudentStats stats() {
+        // Bộ đếm được cập nhật khi giữ write lock; đọc không cần lock
+        return stats.snapshot();
+    }
+
+    @Override
+    public long collectionVersion() {
+        return version;
+    }
+
+    @Override
+    public long recordVersion(Integer id) {
+        if (id == null) {
+            return -1;
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int row = liveRowOf(id);
+            return row < 0 ? -1 : versions[row];
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Writes
+    // ----------------------------------------------------------------------------------------------
+
+    @Override
+    public void create(Student student) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            checkAge(student);
+            int id = nextId++;
+            student.setId(id);
+            int row = appendRow(id);
+            writeColumns(row, student);
+            nameIndex.add(id, student.getName());
+            stats.add(student);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void update(Integer id, Student student) {
+        if (id == null) {
+            return;
+        }
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int row = liveRowOf(id);
+            if (row < 0) {
+                return;
+            }
+            checkAge(student);
+            nameIndex.remove(id, nameAt(row));
+            stats.remove(materialize(row));
+            releaseName(row);
+            writeColumns(row, student);
+            nameIndex.add(id, student.getName());
+            stats.add(student);
+            if (names.needsCompaction()) {
+                compactNames();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Integer id) {
+        if (id == null) {
+            return;
+        }
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int row = liveRowOf(id);
+            if (row < 0) {
+                return;
+            }
+            nameIndex.remove(id, nameAt(row));
+            stats.remove(materialize(row));
+            releaseName(row);
+            live.clear(row);
+            for (BitSet bits : genders.values()) {
+                bits.clear(row);
+            }
+            liveCount--;
+            version++;
+            if (rowCount > INITIAL_CAPACITY && liveCount < rowCount / 2) {
+                compactRows();
+            }
+            if (names.needsCompaction()) {
+                compactNames();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void restore(Student student) {
+        int id = student.getId();
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            checkAge(student);
+            int position = Arrays.binarySearch(ids, 0, rowCount, id);
+            int row;
+            if (position >= 0) {
+                row = position;
+                if (live.get(row)) {
+                    nameIndex.remove(id, nameAt(row));
+                    stats.remove(materialize(row));
+                    releaseName(row);
+                } else {
+                    live.set(row);
+                    liveCount++;
+                }
+            } else {
+                row = insertRow(-position - 1, id);
+            }
+            writeColumns(row, student);
+            nameIndex.add(id, student.getName());
+            stats.add(student);
+            nextId = Math.max(nextId, id + 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int allocateId() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            return nextId++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void advanceIdSequence(int lastAssignedId) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            nextId = Math.max(nextId, lastAssignedId + 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Columns
+    // ----------------------------------------------------------------------------------------------
+
+    private Student materialize(int row) {
+        Student.Gender gender = null;
+        for (Map.Entry<Student.Gender, BitSet> entry : genders.entrySet()) {
+            if (entry.getValue().get(row)) {
+                gender = entry.getKey();
+                break;
+            }
+        }
+        byte age = ages[row];
+        // Chỉ đọc: danh sách của findAll được dùng chung giữa các reader
+        return new ReadOnlyStudent(ids[row], nameAt(row), age == NULL_AGE ? null : (int) age, gender);
+    }
+
+    private String nameAt(int row) {
+        int code = nameCodes[row];
+        return code == NULL_NAME ? null : names.get(code);
+    }
+
+    /**
+     * Trả mã tên của một dòng đang sống về dictionary, trước khi dòng bị ghi đè hoặc xóa
+     */
+    private void releaseName(int row) {
+        int code = nameCodes[row];
+        if (code != NULL_NAME) {
+            names.release(code);
+            nameCodes[row] = NULL_NAME;
+        }
+    }
+
+    /**
+     * Cột tuổi là byte: kiểm tra trước khi động vào bất kỳ cột/index nào
+     */
+    private static void checkAge(Student student) {
+        Integer age = student.getAge();
+        if (age != null && (age <= NULL_AGE || age > Byte.MAX_VALUE)) {
+            throw new IllegalArgumentException("Tuổi không hợp lệ: " + age);
+        }
+    }
+
+    private void writeColumns(int row, Student student) {
+        versions[row] = ++version;
+        Integer age = student.getAge();
+        ages[row] = age == null ? NULL_AGE : age.byteValue();
+        nameCodes[row] = student.getName() == null ? NULL_NAME : names.intern(student.getName());
+        for (Map.Entry<Student.Gender, BitSet> entry : genders.entrySet()) {
+            entry.getValue().set(row, entry.getKey() == student.getGender());
+        }
+    }
+
+    /**
+     * Dòng đang sống có id này, -1 nếu không có
+     */
+    private int liveRowOf(int id) {
+        int row = Arrays.binarySearch(ids, 0, rowCount, id);
+        return row >= 0 && live.get(row) ? row : -1;
+    }
+
+    private int firstRowAfter(int id) {
+        int position = Arrays.binarySearch(ids, 0, rowCount, id);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private int appendRow(int id) {
+        ensureCapacity(rowCount + 1);
+        int row = rowCount++;
+        ids[row] = id;
+        live.set(row);
+        liveCount++;
+        return row;
+    }
+
+    /**
+     * Chèn dòng vào giữa để giữ ids tăng dần. Chỉ xảy ra khi restore một id cũ hơn id lớn nhất (kể cả
+     * create song song qua ChangePublishingStudentDao ghi lệch thứ tự id), chi phí theo số dòng phía sau
+     */
+    private int insertRow(int position, int id) {
+        if (position == rowCount) {
+            return appendRow(id);
+        }
+        ensureCapacity(rowCount + 1);
+        System.arraycopy(ids, position, ids, position + 1, rowCount - position);
+        System.arraycopy(ages, position, ages, position + 1, rowCount - position);
+        System.arraycopy(nameCodes, position, nameCodes, position + 1, rowCount - position);
+        System.arraycopy(versions, position, versions, position + 1, rowCount - position);
+        shiftBits(live, position);
+        for (BitSet bits : genders.values()) {
+            shiftBits(bits, position);
+        }
+        rowCount++;
+        ids[position] = id;
+        live.set(position);
+        liveCount++;
+        return position;
+    }
+
+    private void shiftBits(BitSet bits, int position) {
+        for (int row = rowCount - 1; row >= position; row--) {
+            bits.set(row + 1, bits.get(row));
+        }
+        bits.clear(position);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        nameCodes = Arrays.copyOf(nameCodes, newCapacity);
+        versions = Arrays.copyOf(versions, newCapacity);
+    }
+
+    /**
+     * Dồn các dòng còn sống lên đầu, bỏ các dòng đã xóa
+     */
+    private void compactRows() {
+        Map<Student.Gender, BitSet> compactedGenders = new EnumMap<>(Student.Gender.class);
+        for (Student.Gender gender : Student.Gender.values()) {
+            compactedGenders.put(gender, new BitSet(liveCount));
+        }
+
+        int target = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            ids[target] = ids[row];
+            ages[target] = ages[row];
+            nameCodes[target] = nameCodes[row];
+            versions[target] = versions[row];
+            for (Map.Entry<Student.Gender, BitSet> entry : genders.entrySet()) {
+                if (entry.getValue().get(row)) {
+                    compactedGenders.get(entry.getKey()).set(target);
+                }
+            }
+            target++;
+        }
+
+        rowCount = target;
+        live = new BitSet(rowCount);
+        live.set(0, rowCount);
+        genders.putAll(compactedGenders);
+    }
+
+    /**
+     * Bỏ các tên không còn dòng nào dùng khỏi arena và đánh lại mã tên cho các dòng. Dòng chết đã trả mã
+     * từ lúc bị xóa (NULL_NAME), nên chỉ còn mã của dòng sống, đều có trong bảng ánh xạ
+     */
+    private void compactNames() {
+        int[] remap = names.compact();
+        for (int row = 0; row < rowCount; row++) {
+            int code = nameCodes[row];
+            if (code != NULL_NAME) {
+                nameCodes[row] = remap[code];
+            }
+        }
+    }
+
+    /**
+     * Số byte dictionary tên đang chiếm (arena off-heap + các mảng index), cho test
+     */
+    long nameDictionaryBytes() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return names.memoryBytes();
+        } finally {
+            readLock.unlock();
+        }
+    }
+}
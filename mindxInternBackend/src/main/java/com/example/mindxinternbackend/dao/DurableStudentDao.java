@@ -0,0 +1,780 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentStats;
+import com.example.mindxinternbackend.entity.Student;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * StudentDao bền vững: bọc một StudentDao in-memory (delegate) và ghi mọi thay đổi xuống đĩa.
+ *
+ * - Write-ahead log append-only, mỗi record có CRC32 và lsn liên tiếp; record lỗi/ghi dở ở cuối log bị cắt bỏ
+ *   khi khôi phục. Nếu sau chỗ hỏng vẫn còn record (log hỏng ở giữa) thì không khởi động, vì áp dụng tiếp
+ *   các record đó sẽ tạo ra trạng thái chưa từng tồn tại
+ * - Group commit: writer chỉ copy record vào buffer rồi chờ, một flusher thread ghi + fsync cả lô một lần
+ * - Compaction định kỳ: khi log đủ lớn thì chuyển sang segment mới và ghi snapshot toàn bộ dữ liệu,
+ *   sau đó xóa các segment cũ. Snapshot được đọc lại bằng memory-mapped file
+ * - Khởi động: nạp snapshot mới nhất rồi replay phần log sau snapshot, nên thời gian khởi động
+ *   chỉ phụ thuộc vào lượng log kể từ snapshot cuối
+ *
+ * Mỗi record log chứa ảnh đầy đủ của dòng sau khi ghi (upsert) hoặc id bị xóa, nên replay là idempotent
+ * và snapshot có thể được chụp trong khi writer vẫn chạy.
+ *
+ * Tạo segment mới và rename snapshot đều fsync cả thư mục, để sau crash không mất file mà recovery
+ * (và việc đã xóa segment cũ) dựa vào.
+ */
+@Slf4j
+public class DurableStudentDao implements StudentDao, Closeable {
+
+    private static final String LOG_PREFIX = "log-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private static final byte OP_UPSERT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_ID_SEQUENCE = 3;
+
+    /** length (int) + crc (int) */
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int SNAPSHOT_MAGIC = 0x53545544;
+    private static final int SNAPSHOT_VERSION = 1;
+    /** magic, version, lsn, highestId, rowCount, bodyCrc, bodyLength */
+    private static final int SNAPSHOT_HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4 + 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Windows không mở được thư mục như file để fsync */
+    private static final boolean SYNC_DIRECTORIES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * Kết quả replay một segment; validEnd < size nghĩa là từ validEnd trở đi là record hỏng
+     */
+    private record SegmentReplay(long lastLsn, long applied, long validEnd, long size) {
+    }
+
+    private final StudentDao delegate;
+    private final Path directory;
+    private final long compactThresholdBytes;
+
+    // Tuần tự hóa "áp dụng vào delegate + append record" để thứ tự trong log khớp thứ tự áp dụng.
+    // Phần tốn thời gian (write + fsync) nằm ngoài lock này, trong flusher thread.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final CRC32 appendCrc = new CRC32();
+    private long nextLsn = 1;
+    private int highestId;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition hasPending = flushLock.newCondition();
+    private final Condition flushed = flushLock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_SIZE);
+    private long pendingLsn;
+    private long durableLsn;
+    private IOException flushFailure;
+    private FileChannel logChannel;
+
+    private volatile boolean closed;
+    private final AtomicLong logBytesSinceSnapshot = new AtomicLong();
+    private Thread flusher;
+    private ScheduledExecutorService compactor;
+
+    private DurableStudentDao(StudentDao delegate, Path directory, long compactThresholdBytes) {
+        this.delegate = delegate;
+        this.directory = directory;
+        this.compactThresholdBytes = compactThresholdBytes;
+    }
+
+    /**
+     * Mở (hoặc tạo mới) store tại directory: khôi phục dữ liệu vào delegate rồi bắt đầu nhận ghi.
+     * Store mới hoàn toàn được thêm sẵn dữ liệu mẫu giống chế độ in-memory.
+     *
+     * @param delegate - store in-memory rỗng để chứa dữ liệu
+     * @param compactThresholdBytes - lượng log tích lũy tối thiểu để compaction chạy
+     * @param compactInterval - chu kỳ kiểm tra compaction
+     */
+    public static DurableStudentDao open(StudentDao delegate, Path directory,
+                                         long compactThresholdBytes, Duration compactInterval) throws IOException {
+        Files.createDirectories(directory);
+        DurableStudentDao dao = new DurableStudentDao(delegate, directory, compactThresholdBytes);
+        dao.recover();
+        dao.start(compactInterval);
+        if (dao.highestId == 0) {
+            StudentDaoImpl.sampleStudents().forEach(dao::create);
+        }
+        return dao;
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Reads: đi thẳng vào delegate
+    // ----------------------------------------------------------------------------------------------
+
+    @Override
+    public Student findById(Integer id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Student> findPage(Integer afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Student> findByFilter(Student.Gender gender, Integer minAge, Integer maxAge) {
+        return delegate.findByFilter(gender, minAge, maxAge);
+    }
+
+    @Override
+    public List<Student> searchByName(String query, int limit) {
+        return delegate.searchByName(query, limit);
+    }
+
+    @Override
+    public StudentStats stats() {
+        return delegate.stats();
+    }
+
+    @Override
+    public long collectionVersion() {
+        return delegate.collectionVersion();
+    }
+
+    @Override
+    public long recordVersion(Integer id) {
+        return delegate.recordVersion(id);
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Writes: áp dụng + append dưới writeLock, chờ fsync ngoài lock
+    // ----------------------------------------------------------------------------------------------
+
+    @Override
+    public void create(Student student) {
+        long lsn;
+        writeLock.lock();
+        try {
+            ensureWritable();
+            delegate.create(student);
+            highestId = Math.max(highestId, student.getId());
+            lsn = append(OP_UPSERT, student, 0);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+    }
+
+    @Override
+    public void update(Integer id, Student student) {
+        long lsn;
+        writeLock.lock();
+        try {
+            ensureWritable();
+            if (id == null || delegate.findById(id) == null) {
+                return;
+            }
+            delegate.update(id, student);
+            lsn = append(OP_UPSERT, delegate.findById(id), 0);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+    }
+
+    @Override
+    public void delete(Integer id) {
+        long lsn;
+        writeLock.lock();
+        try {
+            ensureWritable();
+            if (id == null || delegate.findById(id) == null) {
+                return;
+            }
+            delegate.delete(id);
+            lsn = append(OP_DELETE, null, id);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+    }
+
+    @Override
+    public void restore(Student student) {
+        long lsn;
+        writeLock.lock();
+        try {
+            ensureWritable();
+            delegate.restore(student);
+            highestId = Math.max(highestId, student.getId());
+            lsn = append(OP_UPSERT, student, 0);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+    }
+
+    /**
+     * Không cần ghi log: id chỉ bền vững khi bản ghi mang id đó được ghi (restore cập nhật highestId)
+     */
+    @Override
+    public int allocateId() {
+        ensureWritable();
+        return delegate.allocateId();
+    }
+
+    @Override
+    public void advanceIdSequence(int lastAssignedId) {
+        long lsn;
+        writeLock.lock();
+        try {
+            ensureWritable();
+            delegate.advanceIdSequence(lastAssignedId);
+            highestId = Math.max(highestId, lastAssignedId);
+            lsn = append(OP_ID_SEQUENCE, null, lastAssignedId);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+    }
+
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("Student store đã đóng");
+        }
+    }
+
+    /**
+     * Encode một record vào buffer chờ flush. Gọi khi đang giữ writeLock.
+     * Layout: length | crc32(body) | body = lsn | op | (row hoặc id)
+     */
+    private long append(byte op, Student row, int id) {
+        long lsn = nextLsn++;
+        byte[] nameBytes = row == null ? null : StudentRecordCodec.nameBytes(row);
+        int bodyLength = Long.BYTES + 1 + (row == null ? Integer.BYTES : StudentRecordCodec.rowSize(nameBytes));
+
+        flushLock.lock();
+        try {
+            if (flushFailure != null) {
+                throw new UncheckedIOException("Không ghi được log student", flushFailure);
+            }
+            ensureCapacity(RECORD_HEADER_SIZE + bodyLength);
+            int start = pending.position();
+            pending.putInt(bodyLength);
+            pending.putInt(0);
+            int bodyStart = pending.position();
+            pending.putLong(lsn);
+            pending.put(op);
+            if (row == null) {
+                pending.putInt(id);
+            } else {
+                StudentRecordCodec.writeRow(pending, row, nameBytes);
+            }
+
+            appendCrc.reset();
+            appendCrc.update(pending.array(), bodyStart, bodyLength);
+            pending.putInt(start + Integer.BYTES, (int) appendCrc.getValue());
+
+            pendingLsn = lsn;
+            hasPending.signal();
+        } finally {
+            flushLock.unlock();
+        }
+        return lsn;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (pending.remaining() >= needed) {
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+
+    private void awaitDurable(long lsn) {
+        flushLock.lock();
+        try {
+            while (durableLsn < lsn) {
+                if (flushFailure != null) {
+                    throw new UncheckedIOException("Không ghi được log student", flushFailure);
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Group commit: lấy toàn bộ record đang chờ, ghi + fsync một lần, rồi báo cho mọi writer trong lô
+     */
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchLsn;
+            FileChannel channel;
+
+            flushLock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    hasPending.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                batch = pending;
+                batchLsn = pendingLsn;
+                channel = logChannel;
+                pending = spare;
+                spare = null;
+            } finally {
+                flushLock.unlock();
+            }
+
+            IOException failure = null;
+            int written = batch.position();
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            flushLock.lock();
+            try {
+                batch.clear();
+                spare = batch;
+                if (failure != null) {
+                    // Lỗi là vĩnh viễn: không thể để các record sau "che" mất record bị mất
+                    log.error("Failed to flush student log: ", failure);
+                    flushFailure = failure;
+                } else {
+                    durableLsn = batchLsn;
+                }
+                flushed.signalAll();
+            } finally {
+                flushLock.unlock();
+            }
+            if (failure != null) {
+                return;
+            }
+            logBytesSinceSnapshot.addAndGet(written);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Recovery
+    // ----------------------------------------------------------------------------------------------
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        long snapshotLsn = loadLatestSnapshot();
+        long lastLsn = snapshotLsn;
+        long replayed = 0;
+        List<Path> tornSegments = new ArrayList<>();
+        List<Long> tornOffsets = new ArrayList<>();
+
+        for (Path segment : listFiles(LOG_PREFIX, LOG_SUFFIX)) {
+            // Record cần áp dụng tiếp theo luôn là lastLsn + 1: replaySegment từ chối mọi khoảng trống,
+            // kể cả khi segment trước hỏng ở giữa mà segment này vẫn còn record
+            SegmentReplay result = replaySegment(segment, snapshotLsn, lastLsn + 1);
+            lastLsn = Math.max(lastLsn, result.lastLsn());
+            replayed += result.applied();
+            if (result.validEnd() < result.size()) {
+                tornSegments.add(segment);
+                tornOffsets.add(result.validEnd());
+            }
+            logBytesSinceSnapshot.addAndGet(result.validEnd());
+        }
+
+        // Chỉ cắt khi toàn bộ log đã replay được: không có record nào sau chỗ hỏng
+        for (int i = 0; i < tornSegments.size(); i++) {
+            Path segment = tornSegments.get(i);
+            log.warn("Truncating corrupt tail of {} at offset {} (file size {})",
+                segment, tornOffsets.get(i), Files.size(segment));
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(tornOffsets.get(i));
+                channel.force(true);
+            }
+        }
+
+        delegate.advanceIdSequence(highestId);
+        nextLsn = lastLsn + 1;
+        durableLsn = lastLsn;
+        logChannel = openSegment(nextLsn);
+
+        log.info("Student store recovered from {}: snapshot lsn={}, replayed {} log records in {} ms",
+            directory, snapshotLsn, replayed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Nạp snapshot hợp lệ mới nhất vào delegate, trả về lsn của snapshot (0 nếu không có)
+     */
+    private long loadLatestSnapshot() throws IOException {
+        List<Path> snapshots = listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < SNAPSHOT_HEADER_SIZE || size > Integer.MAX_VALUE) {
+                    log.warn("Ignoring snapshot {} with unexpected size {}", snapshot, size);
+                    continue;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                    log.warn("Ignoring snapshot {} with unknown format", snapshot);
+                    continue;
+                }
+                long lsn = buffer.getLong();
+                int snapshotHighestId = buffer.getInt();
+                int rowCount = buffer.getInt();
+                int bodyCrc = buffer.getInt();
+                long bodyLength = buffer.getLong();
+                if (SNAPSHOT_HEADER_SIZE + bodyLength != size) {
+                    log.warn("Ignoring truncated snapshot {}", snapshot);
+                    continue;
+                }
+
+                // Kiểm tra checksum toàn bộ body trước khi nạp dòng nào vào delegate
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(SNAPSHOT_HEADER_SIZE, (int) bodyLength));
+                if ((int) crc.getValue() != bodyCrc) {
+                    log.warn("Ignoring snapshot {} with bad checksum", snapshot);
+                    continue;
+                }
+
+                for (int row = 0; row < rowCount; row++) {
+                    delegate.restore(StudentRecordCodec.readRow(buffer));
+                }
+                highestId = Math.max(highestId, snapshotHighestId);
+                return lsn;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Replay các record có lsn > snapshotLsn, dừng ở record hỏng đầu tiên (ghi dở khi crash); người gọi cắt bỏ
+     * phần từ đó trở đi sau khi cả log đã replay xong
+     *
+     * @param expectedLsn - lsn của record kế tiếp cần áp dụng
+     * @throws IOException khi record sau snapshot không có lsn liên tiếp (thiếu record ở giữa log)
+     */
+    private SegmentReplay replaySegment(Path segment, long snapshotLsn, long expectedLsn) throws IOException {
+        long lastLsn = 0;
+        long applied = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Log segment quá lớn: " + segment);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            int validEnd = 0;
+
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer body = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+                validEnd = buffer.position();
+
+                long lsn = body.getLong();
+                lastLsn = Math.max(lastLsn, lsn);
+                if (lsn > snapshotLsn) {
+                    if (lsn != expectedLsn) {
+                        throw new IOException("Student log " + segment + " thiếu record lsn=" + expectedLsn
+                            + " (gặp lsn=" + lsn + "): log hỏng hoặc mất file ở giữa, không thể khôi phục an toàn");
+                    }
+                    applyRecord(body);
+                    applied++;
+                    expectedLsn++;
+                }
+            }
+            return new SegmentReplay(lastLsn, applied, validEnd, size);
+        }
+    }
+
+    private void applyRecord(ByteBuffer body) throws IOException {
+        byte op = body.get();
+        switch (op) {
+            case OP_UPSERT:
+                Student student = StudentRecordCodec.readRow(body);
+                delegate.restore(student);
+                highestId = Math.max(highestId, student.getId());
+                break;
+            case OP_DELETE:
+                delegate.delete(body.getInt());
+                break;
+            case OP_ID_SEQUENCE:
+                highestId = Math.max(highestId, body.getInt());
+                break;
+            default:
+                throw new IOException("Unknown student log op: " + op);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Compaction
+    // ----------------------------------------------------------------------------------------------
+
+    private void start(Duration compactInterval) {
+        flusher = new Thread(this::flushLoop, "student-store-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "student-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = compactInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void compactIfNeeded() {
+        if (logBytesSinceSnapshot.get() < compactThresholdBytes) {
+            return;
+        }
+        try {
+            compact();
+        } catch (Exception e) {
+            log.error("Student store compaction failed: ", e);
+        }
+    }
+
+    /**
+     * Chuyển sang log segment mới, ghi snapshot tương ứng rồi xóa snapshot/segment cũ.
+     * Writer chỉ bị chặn trong lúc đổi segment, không phải trong lúc ghi snapshot.
+     */
+    public void compact() throws IOException {
+        long snapshotLsn;
+        int snapshotHighestId;
+        long newSegmentStart;
+
+        writeLock.lock();
+        try {
+            ensureWritable();
+            snapshotLsn = nextLsn - 1;
+            snapshotHighestId = highestId;
+            awaitDurable(snapshotLsn);
+
+            FileChannel newChannel = openSegment(nextLsn);
+            FileChannel oldChannel;
+            flushLock.lock();
+            try {
+                oldChannel = logChannel;
+                logChannel = newChannel;
+            } finally {
+                flushLock.unlock();
+            }
+            oldChannel.close();
+            newSegmentStart = nextLsn;
+            logBytesSinceSnapshot.set(0);
+        } finally {
+            writeLock.unlock();
+        }
+
+        long started = System.nanoTime();
+        int rows = writeSnapshot(snapshotLsn, snapshotHighestId);
+        deleteObsoleteFiles(snapshotLsn, newSegmentStart);
+        log.info("Student store compacted: {} rows at lsn={} in {} ms",
+            rows, snapshotLsn, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private int writeSnapshot(long lsn, int snapshotHighestId) throws IOException {
+        Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        int rowCount = 0;
+        long bodyLength = 0;
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(SNAPSHOT_HEADER_SIZE);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+            for (Student student : (Iterable<Student>) delegate.streamAll()::iterator) {
+                byte[] nameBytes = StudentRecordCodec.nameBytes(student);
+                int rowSize = StudentRecordCodec.rowSize(nameBytes);
+                if (buffer.remaining() < rowSize) {
+                    bodyLength += writeChunk(channel, buffer, crc);
+                    if (buffer.capacity() < rowSize) {
+                        buffer = ByteBuffer.allocate(rowSize);
+                    }
+                }
+                StudentRecordCodec.writeRow(buffer, student, nameBytes);
+                rowCount++;
+            }
+            bodyLength += writeChunk(channel, buffer, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+            header.putInt(SNAPSHOT_MAGIC);
+            header.putInt(SNAPSHOT_VERSION);
+            header.putLong(lsn);
+            header.putInt(snapshotHighestId);
+            header.putInt(rowCount);
+            header.putInt((int) crc.getValue());
+            header.putLong(bodyLength);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // Rename phải bền vững trước khi xóa các segment mà snapshot này thay thế
+        syncDirectory();
+        return rowCount;
+    }
+
+    private static int writeChunk(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        int length = buffer.position();
+        crc.update(buffer.array(), 0, length);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return length;
+    }
+
+    private void deleteObsoleteFiles(long snapshotLsn, long activeSegmentStart) throws IOException {
+        for (Path snapshot : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (sequenceOf(snapshot, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < snapshotLsn) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        for (Path segment : listFiles(LOG_PREFIX, LOG_SUFFIX)) {
+            if (sequenceOf(segment, LOG_PREFIX, LOG_SUFFIX) < activeSegmentStart) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------
+    // Files
+    // ----------------------------------------------------------------------------------------------
+
+    private FileChannel openSegment(long startLsn) throws IOException {
+        Path segment = directory.resolve(fileName(LOG_PREFIX, startLsn, LOG_SUFFIX));
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        try {
+            // fsync của các record chỉ đảm bảo nội dung file, entry của file mới trong thư mục cần fsync riêng
+            syncDirectory();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private void syncDirectory() throws IOException {
+        if (!SYNC_DIRECTORIES) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static String fileName(String prefix, long sequence, String suffix) {
+        return String.format("%s%020d%s", prefix, sequence, suffix);
+    }
+
+    private static long sequenceOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    /**
+     * Liệt kê file theo thứ tự sequence tăng dần
+     */
+    private List<Path> listFiles(String prefix, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(path -> sequenceOf(path, prefix, suffix)));
+        return files;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writeLock.lock();
+        try {
+            flushLock.lock();
+            try {
+                closed = true;
+                hasPending.signal();
+            } finally {
+                flushLock.unlock();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logChannel.close();
+    }
+}
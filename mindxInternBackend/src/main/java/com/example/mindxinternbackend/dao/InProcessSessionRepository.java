@@ -0,0 +1,301 @@
+package com.example.mindxinternbackend.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SessionRepository của Spring Session giữ phiên trong heap của pod (auth.session.mode=servlet)
+ *
+ * - Chia shard theo hash của session id, mỗi shard một LinkedHashMap + lock riêng nên các request
+ *   của những phiên khác nhau gần như không tranh lock
+ * - Hết hạn bằng TimingWheel: mỗi phiên chỉ nằm trong một slot, sweeper mỗi tick chỉ xử lý các phiên
+ *   tới hạn thay vì quét toàn bộ. Phiên được gia hạn không bị xếp lại ngay, khi slot cũ tới hạn
+ *   sweeper thấy phiên chưa hết hạn thì hẹn lại theo lastAccessedTime mới
+ * - Phiên bị xóa (deleteById, changeSessionId, bỏ vì vượt trần, hết hạn khi đọc) được gỡ khỏi wheel ngay,
+ *   nên số entry trong wheel luôn <= số phiên đang giữ. Thao tác wheel chạy khi đang giữ lock của shard
+ *   (thứ tự lock luôn là shard rồi wheelLock) để wheel và shard không lệch nhau
+ * - Giới hạn cứng maxSessions: mỗi shard giữ thứ tự theo lần save gần nhất, vượt trần thì bỏ phiên
+ *   lâu không dùng nhất (LRU) để heap không phình vô hạn khi bị spam tạo phiên
+ *
+ * Như MapSessionRepository, repository lưu và trả về bản sao MapSession nên request không chia sẻ object
+ */
+@Slf4j
+public class InProcessSessionRepository implements SessionRepository<MapSession>, Closeable {
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Thứ tự chèn, save() chèn lại phiên ở cuối: phần tử đầu là phiên lâu không dùng nhất
+        private final LinkedHashMap<String, MapSession> sessions = new LinkedHashMap<>();
+    }
+
+    private final Shard[] shards;
+    private final int maxSessionsPerShard;
+    private final Duration defaultMaxInactiveInterval;
+    private final long tickMillis;
+    private final Clock clock;
+
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private final TimingWheel wheel;
+
+    private final AtomicInteger liveSessions = new AtomicInteger();
+    private final Counter created;
+    private final Counter expired;
+    private final Counter evicted;
+
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * @param shardCount - làm tròn lên lũy thừa của 2
+     * @param maxSessions - tổng số phiên tối đa, chia đều cho các shard
+     * @param tick - độ phân giải của timing wheel, phiên hết hạn trễ tối đa một tick
+     */
+    public InProcessSessionRepository(int shardCount, int maxSessions, Duration defaultMaxInactiveInterval,
+                                      Duration tick, Clock clock, MeterRegistry meterRegistry) {
+        if (shardCount <= 0 || maxSessions <= 0) {
+            throw new IllegalArgumentException("shardCount and maxSessions must be positive");
+        }
+        int shardTotal = Integer.highestOneBit(shardCount);
+        if (shardTotal < shardCount) {
+            shardTotal <<= 1;
+        }
+        this.shards = new Shard[shardTotal];
+        for (int i = 0; i < shardTotal; i++) {
+            shards[i] = new Shard();
+        }
+        this.maxSessionsPerShard = Math.max(1, (maxSessions + shardTotal - 1) / shardTotal);
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.clock = clock;
+        this.wheel = new TimingWheel(clock.millis() / tickMillis);
+
+        Gauge.builder("auth.sessions.live", liveSessions, AtomicInteger::get)
+            .description("Phiên đang giữ trong bộ nhớ")
+            .register(meterRegistry);
+        this.created = Counter.builder("auth.sessions.created").register(meterRegistry);
+        this.expired = Counter.builder("auth.sessions.evicted").tag("reason", "expired").register(meterRegistry);
+        this.evicted = Counter.builder("auth.sessions.evicted").tag("reason", "capacity").register(meterRegistry);
+    }
+
+    /**
+     * Chạy sweeper nền, mỗi tick tiến timing wheel một lần
+     */
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (Exception e) {
+                log.error("Session sweep failed: ", e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        String id = session.getId();
+        if (!id.equals(session.getOriginalId())) {
+            // changeSessionId(): bỏ bản ghi theo id cũ, bản ghi mới được hẹn giờ như phiên mới
+            deleteById(session.getOriginalId());
+        }
+
+        MapSession copy = new MapSession(session);
+        boolean isNew;
+        int overflow = 0;
+        Shard shard = shardFor(id);
+        shard.lock.lock();
+        try {
+            isNew = shard.sessions.remove(id) == null;
+            shard.sessions.put(id, copy);
+            Iterator<String> eldest = shard.sessions.keySet().iterator();
+            while (shard.sessions.size() > maxSessionsPerShard) {
+                cancel(eldest.next());
+                eldest.remove();
+                overflow++;
+            }
+            liveSessions.addAndGet((isNew ? 1 : 0) - overflow);
+            if (isNew) {
+                schedule(copy);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+
+        if (overflow > 0) {
+            evicted.increment(overflow);
+            log.debug("Session store full, evicted {} least recently used session(s)", overflow);
+        }
+        if (isNew) {
+            created.increment();
+        }
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        Shard shard = shardFor(id);
+        shard.lock.lock();
+        try {
+            MapSession stored = shard.sessions.get(id);
+            if (stored == null) {
+                return null;
+            }
+            if (isExpired(stored)) {
+                shard.sessions.remove(id);
+                cancel(id);
+                liveSessions.decrementAndGet();
+                expired.increment();
+                return null;
+            }
+            return new MapSession(stored);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Shard shard = shardFor(id);
+        shard.lock.lock();
+        try {
+            if (shard.sessions.remove(id) != null) {
+                cancel(id);
+                liveSessions.decrementAndGet();
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Tiến timing wheel tới thời điểm hiện tại và xóa các phiên tới hạn
+     */
+    void sweep() {
+        List<String> due = new ArrayList<>();
+        wheelLock.lock();
+        try {
+            wheel.advance(clock.millis() / tickMillis, due::add);
+        } finally {
+            wheelLock.unlock();
+        }
+
+        for (String id : due) {
+            expireIfDue(id);
+        }
+    }
+
+    int size() {
+        return liveSessions.get();
+    }
+
+    /**
+     * Số phiên đang được hẹn giờ trong timing wheel
+     */
+    int scheduledCount() {
+        wheelLock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    /**
+     * Xóa phiên nếu đã hết hạn, hẹn lại theo lastAccessedTime mới nếu phiên đã được gia hạn sau lần hẹn trước
+     */
+    private void expireIfDue(String id) {
+        Shard shard = shardFor(id);
+        shard.lock.lock();
+        try {
+            // get() không đổi thứ tự LRU (LinkedHashMap theo thứ tự chèn)
+            MapSession stored = shard.sessions.get(id);
+            if (stored == null) {
+                return;
+            }
+            if (!isExpired(stored)) {
+                schedule(stored);
+                return;
+            }
+            shard.sessions.remove(id);
+            liveSessions.decrementAndGet();
+            expired.increment();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Gọi khi đang giữ lock của shard chứa phiên
+     */
+    private void schedule(MapSession session) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        if (maxInactive.isNegative()) {
+            // Không bao giờ hết hạn, chỉ bị bỏ khi vượt trần bộ nhớ
+            return;
+        }
+        long expiresAtMillis = session.getLastAccessedTime().plus(maxInactive).toEpochMilli();
+        long deadlineTick = Math.ceilDiv(expiresAtMillis, tickMillis);
+        wheelLock.lock();
+        try {
+            wheel.schedule(session.getId(), deadlineTick);
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    /**
+     * Gọi khi đang giữ lock của shard chứa phiên
+     */
+    private void cancel(String id) {
+        wheelLock.lock();
+        try {
+            wheel.cancel(id);
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    private boolean isExpired(MapSession session) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        return !maxInactive.isNegative()
+            && !clock.instant().isBefore(session.getLastAccessedTime().plus(maxInactive));
+    }
+
+    private Shard shardFor(String id) {
+        int hash = id.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+}
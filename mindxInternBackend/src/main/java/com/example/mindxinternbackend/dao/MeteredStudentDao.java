@@ -0,0 +1,145 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentStats;
+import com.example.mindxinternbackend.entity.Student;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Bọc một StudentDao và đo thời gian từng thao tác bằng Micrometer Timer "student.dao{operation}".
+ * Percentile/histogram được bật qua cấu hình management.metrics.distribution.* (xem metrics.properties).
+ *
+ * Các Timer được tạo sẵn một lần trong constructor nên hot path chỉ ghi vào timer,
+ * không tra registry. streamAll chỉ đo thời gian mở stream, không đo thời gian consumer duyệt.
+ */
+public class MeteredStudentDao implements StudentDao, Closeable {
+
+    private final StudentDao delegate;
+
+    private final Timer findById;
+    private final Timer findAll;
+    private final Timer findPage;
+    private final Timer streamAll;
+    private final Timer findByFilter;
+    private final Timer searchByName;
+    private final Timer stats;
+    private final Timer create;
+    private final Timer update;
+    private final Timer delete;
+    private final Timer restore;
+
+    public MeteredStudentDao(StudentDao delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.findById = timer(registry, "findById");
+        this.findAll = timer(registry, "findAll");
+        this.findPage = timer(registry, "findPage");
+        this.streamAll = timer(registry, "streamAll");
+        this.findByFilter = timer(registry, "findByFilter");
+        this.searchByName = timer(registry, "searchByName");
+        this.stats = timer(registry, "stats");
+        this.create = timer(registry, "create");
+        this.update = timer(registry, "update");
+        this.delete = timer(registry, "delete");
+        this.restore = timer(registry, "restore");
+
+        Gauge.builder("student.store.size", delegate, dao -> dao.stats().getTotal())
+            .description("Số student hiện có trong store")
+            .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("student.dao")
+            .description("Thời gian thực thi thao tác của StudentDao")
+            .tag("operation", operation)
+            .register(registry);
+    }
+
+    @Override
+    public Student findById(Integer id) {
+        return findById.record(() -> delegate.findById(id));
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return findAll.record(delegate::findAll);
+    }
+
+    @Override
+    public List<Student> findPage(Integer afterId, int limit) {
+        return findPage.record(() -> delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        return streamAll.record(delegate::streamAll);
+    }
+
+    @Override
+    public List<Student> findByFilter(Student.Gender gender, Integer minAge, Integer maxAge) {
+        return findByFilter.record(() -> delegate.findByFilter(gender, minAge, maxAge));
+    }
+
+    @Override
+    public List<Student> searchByName(String query, int limit) {
+        return searchByName.record(() -> delegate.searchByName(query, limit));
+    }
+
+    @Override
+    public StudentStats stats() {
+        return stats.record(delegate::stats);
+    }
+
+    @Override
+    public long collectionVersion() {
+        // Chỉ đọc một biến đếm, đo thời gian sẽ tốn hơn chính thao tác
+        return delegate.collectionVersion();
+    }
+
+    @Override
+    public long recordVersion(Integer id) {
+        return delegate.recordVersion(id);
+    }
+
+    @Override
+    public void update(Integer id, Student student) {
+        update.record(() -> delegate.update(id, student));
+    }
+
+    @Override
+    public void create(Student student) {
+        create.record(() -> delegate.create(student));
+    }
+
+    @Override
+    public void delete(Integer id) {
+        delete.record(() -> delegate.delete(id));
+    }
+
+    @Override
+    public void restore(Student student) {
+        restore.record(() -> delegate.restore(student));
+    }
+
+    @Override
+    public int allocateId() {
+        return delegate.allocateId();
+    }
+
+    @Override
+    public void advanceIdSequence(int lastAssignedId) {
+        delegate.advanceIdSequence(lastAssignedId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
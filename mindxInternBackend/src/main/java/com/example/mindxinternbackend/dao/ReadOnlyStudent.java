@@ -0,0 +1,42 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.entity.Student;
+
+/**
+ * Bản ghi đã lưu (hoặc đã materialize và dùng chung giữa các reader), chỉ đọc. Ghi luôn thay bằng object mới
+ * nên reader đang giữ object cũ (hoặc snapshot cũ) không bao giờ thấy trạng thái ghi dở
+ */
+final class ReadOnlyStudent extends Student {
+
+    ReadOnlyStudent(Integer id, Student source) {
+        this(id, source.getName(), source.getAge(), source.getGender());
+    }
+
+    ReadOnlyStudent(Integer id, String name, Integer age, Gender gender) {
+        super(id, name, age, gender);
+    }
+
+    @Override
+    public void setId(Integer id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setName(String name) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setAge(Integer age) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setGender(Gender gender) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Student trong store chỉ đọc, hãy tạo object mới để update");
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentChangeEvent;
+import com.example.mindxinternbackend.entity.Student;
+
+/**
+ * Nhận các thay đổi đã được áp dụng vào store, theo đúng thứ tự ghi của từng id.
+ * Được gọi trên thread của writer nên không được block.
+ */
+public interface StudentChangeListener {
+
+    /**
+     * @param student - bản copy trạng thái sau khi ghi, null với DELETED
+     */
+    void onChange(StudentChangeEvent.Type type, Integer id, Student student);
+}
@@ -0,0 +1,30 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentChangeEvent;
+import com.example.mindxinternbackend.entity.Student;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Các StudentChangeListener nhận thay đổi từ ChangePublishingStudentDao, theo thứ tự đăng ký
+ *
+ * Listener tự đăng ký lúc khởi động (change feed SSE, cache response) thay vì được inject vào DAO,
+ * nên listener được phép phụ thuộc vào StudentService/StudentDao mà không tạo vòng phụ thuộc bean.
+ * Mỗi listener được gọi trên thread của writer, nên cũng không được block.
+ */
+public class StudentChangeListeners implements StudentChangeListener {
+
+    private final List<StudentChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void register(StudentChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onChange(StudentChangeEvent.Type type, Integer id, Student student) {
+        for (StudentChangeListener listener : listeners) {
+            listener.onChange(type, id, student);
+        }
+    }
+}
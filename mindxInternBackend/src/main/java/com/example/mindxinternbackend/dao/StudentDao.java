@@ -1,13 +1,85 @@
 package com.example.mindxinternbackend.dao;
 
+import com.example.mindxinternbackend.dto.StudentStats;
 import com.example.mindxinternbackend.entity.Student;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Student trả về từ các hàm đọc chỉ để đọc: store có thể trả thẳng object nội bộ (và ném
+ * UnsupportedOperationException khi gọi setter), muốn sửa thì tạo object mới rồi gọi update
+ */
 public interface StudentDao {
     Student findById(Integer id) ;
+
+    /**
+     * Snapshot bất biến, nhất quán tại một thời điểm, sắp xếp theo id.
+     * Không bị ảnh hưởng bởi các thao tác ghi xảy ra sau khi trả về.
+     */
     List<Student> findAll();
+
+    /**
+     * Keyset pagination: trả về tối đa {@code limit} student có id lớn hơn {@code afterId},
+     * sắp xếp tăng dần theo id. {@code afterId = null} nghĩa là trang đầu tiên.
+     */
+    List<Student> findPage(Integer afterId, int limit);
+
+    /**
+     * Duyệt lần lượt toàn bộ student theo thứ tự id, dùng cho export streaming.
+     * Không dựng thêm một List chứa toàn bộ dữ liệu: store duyệt thẳng trên snapshot đang có
+     * hoặc đọc lần lượt từng chunk
+     */
+    Stream<Student> streamAll();
+
+    /**
+     * Lọc theo gender và/hoặc khoảng tuổi [minAge, maxAge] qua secondary index,
+     * tham số null nghĩa là không lọc theo trường đó. Kết quả sắp xếp theo id.
+     */
+    List<Student> findByFilter(Student.Gender gender, Integer minAge, Integer maxAge);
+
+    /**
+     * Tìm theo tên, không phân biệt dấu tiếng Việt, trả về tối đa {@code limit} kết quả đã xếp hạng
+     */
+    List<Student> searchByName(String query, int limit);
+
+    /**
+     * Thống kê theo gender và tuổi, được duy trì tăng dần trên write path nên đọc là O(1)
+     * theo số bản ghi, không quét dữ liệu
+     */
+    StudentStats stats();
+
+    /**
+     * Version của toàn bộ tập student, tăng sau mỗi thao tác ghi làm thay đổi dữ liệu.
+     * Đọc version trước rồi mới đọc dữ liệu: nếu có ghi xen giữa, version cũ hơn dữ liệu
+     * và client chỉ phải tải lại thêm một lần, không bao giờ giữ dữ liệu cũ với version mới.
+     */
+    long collectionVersion();
+
+    /**
+     * Version của một bản ghi, đổi mỗi khi bản ghi đó được ghi lại; -1 nếu không tồn tại
+     */
+    long recordVersion(Integer id);
+
     void update(Integer id, Student student);
     void create(Student student);
     void delete(Integer id);
+
+    /**
+     * Cấp trước một id mới (như create sẽ cấp) mà chưa ghi gì, để ghi sau bằng restore.
+     * Id đã cấp không bao giờ được cấp lại, kể cả khi không có bản ghi nào được ghi với id đó
+     */
+    int allocateId();
+
+    /**
+     * Ghi lại một bản ghi với id có sẵn (thêm mới hoặc thay thế), không cấp id mới.
+     * Dùng khi khôi phục dữ liệu từ snapshot/log.
+     */
+    void restore(Student student);
+
+    /**
+     * Đảm bảo các id cấp phát sau này lớn hơn {@code lastAssignedId},
+     * kể cả khi bản ghi mang id đó đã bị xóa trước khi khôi phục.
+     */
+    void advanceIdSequence(int lastAssignedId);
 }
@@ -1,73 +1,311 @@
 package com.example.mindxinternbackend.dao;
 
+import com.example.mindxinternbackend.dto.StudentStats;
 import com.example.mindxinternbackend.entity.Student;
-import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
-@Repository
+/**
+ * In-memory store cho Student, an toàn khi nhiều request Tomcat truy cập đồng thời.
+ * Dữ liệu được đánh index theo id bằng ConcurrentHashMap nên findById/update/delete là O(1),
+ * id được cấp phát bằng AtomicInteger để không bị trùng khi create song song.
+ * Thêm một index id có thứ tự (ConcurrentSkipListSet) để findAll giữ thứ tự và phân trang keyset.
+ *
+ * Secondary index:
+ * - ageIndex: age -> tập id, có thứ tự để quét theo khoảng tuổi
+ * - genderIndex: Gender -> tập id
+ * - nameIndex: trigram không dấu -> tập id, cho search theo tên
+ * - stats: bộ đếm LongAdder theo gender/tuổi cho GET /stats
+ * Các index được cập nhật bên trong compute() của id tương ứng nên mọi thay đổi của cùng một id
+ * được tuần tự hóa; reader luôn kiểm tra lại điều kiện trên bản ghi thật nên không trả về kết quả sai
+ * khi đọc đúng lúc index đang được cập nhật.
+ *
+ * Snapshot đọc (findAll/streamAll/collectionVersion/recordVersion): sau khi compute() của id trả về,
+ * writer publish một StudentSnapshot mới chỉ thay dòng của id đó (copy-on-write theo chunk, các chunk khác
+ * dùng chung), nên reader chỉ đọc một field volatile: không lock, O(1), không bao giờ phải dựng lại snapshot.
+ * Publish là vòng CAS trên AtomicReference (updateAndGet), không có lock nào giữa các writer: writer thua CAS
+ * dựng lại bản mới trên snapshot vừa được publish. Mỗi lần thử đọc lại bản ghi hiện tại từ map, nên các lần
+ * ghi song song lên cùng id luôn hội tụ về trạng thái cuối cùng.
+ * Version của snapshot là collectionVersion() dùng làm ETag, version của từng dòng là recordVersion().
+ * Cả hai chỉ tăng khi snapshot được publish, tức là sau khi map và các index đã có dữ liệu mới, nên reader
+ * đọc version trước rồi đọc dữ liệu không bao giờ nhận version mới đi kèm dữ liệu cũ.
+ *
+ * Các Student lưu trong store (trả ra qua findById, findAll, ...) là ReadOnlyStudent: gọi setter sẽ ném
+ * UnsupportedOperationException, nên caller không sửa được dữ liệu đã lưu và làm lệch các index.
+ */
 public class StudentDaoImpl implements StudentDao {
-    List<Student> students = new ArrayList<>();
-    private Integer nextId = 1;
+
+    private final ConcurrentMap<Integer, Student> students = new ConcurrentHashMap<>();
+    private final NavigableSet<Integer> orderedIds = new ConcurrentSkipListSet<>();
+    private final NavigableMap<Integer, Set<Integer>> ageIndex = new ConcurrentSkipListMap<>();
+    private final Map<Student.Gender, Set<Integer>> genderIndex = new EnumMap<>(Student.Gender.class);
+    private final StudentNameIndex nameIndex = new StudentNameIndex();
+    private final StudentStatsCounter stats = new StudentStatsCounter();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private final AtomicReference<StudentSnapshot> snapshot = new AtomicReference<>(StudentSnapshot.EMPTY);
 
     public StudentDaoImpl() {
-        students.add(new Student(1, "Hoàng Ngọc Vương", 22, Student.Gender.NAM));
-        students.add(new Student(2, "Hoàng Nguyên Phúc", 22, Student.Gender.NAM));
-        students.add(new Student(3, "Nguyễn Thu Ngọc", 22, Student.Gender.NU));
-        this.nextId = 4;
+        this(true);
+    }
+
+    /**
+     * @param seedSampleData - true thì thêm sẵn 3 sinh viên mẫu (chế độ in-memory thuần)
+     */
+    public StudentDaoImpl(boolean seedSampleData) {
+        // EnumMap chỉ được ghi ở đây, sau đó chỉ đọc nên không cần đồng bộ thêm
+        for (Student.Gender gender : Student.Gender.values()) {
+            genderIndex.put(gender, ConcurrentHashMap.newKeySet());
+        }
+
+        if (seedSampleData) {
+            sampleStudents().forEach(this::create);
+        }
+    }
+
+    /**
+     * Dữ liệu mẫu cho store mới (chưa có id)
+     */
+    static List<Student> sampleStudents() {
+        return List.of(
+            new Student(null, "Hoàng Ngọc Vương", 22, Student.Gender.NAM),
+            new Student(null, "Hoàng Nguyên Phúc", 22, Student.Gender.NAM),
+            new Student(null, "Nguyễn Thu Ngọc", 22, Student.Gender.NU)
+        );
     }
 
     @Override
     public Student findById(Integer id) {
-        for (Student s : students) {
-            if (s.getId() == id) {
-                return s;
-            }
+        if (id == null) {
+            return null;
         }
-        return null;
+        return students.get(id);
     }
 
     @Override
     public List<Student> findAll() {
-        System.out.println("lay ra thanh cong list student");
+        return snapshot.get();
+    }
+
+    @Override
+    public List<Student> findPage(Integer afterId, int limit) {
+        // Seek thẳng tới vị trí sau cursor trong skip list: O(log n + limit), không phụ thuộc độ sâu trang
+        NavigableSet<Integer> tail = afterId == null ? orderedIds : orderedIds.tailSet(afterId, false);
+        List<Student> result = new ArrayList<>(Math.min(limit, 64));
+        for (Integer id : tail) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Student student = students.get(id);
+            if (student != null) {
+                result.add(student);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        // Duyệt trên snapshot nên export nhất quán tại một thời điểm, không copy dữ liệu
+        return snapshot.get().stream();
+    }
+
+    @Override
+    public List<Student> findByFilter(Student.Gender gender, Integer minAge, Integer maxAge) {
+        List<Student> result = new ArrayList<>();
+
+        if (minAge != null || maxAge != null) {
+            // Quét khoảng tuổi trên index có thứ tự, chỉ chạm vào các bucket nằm trong khoảng
+            int from = minAge != null ? minAge : Integer.MIN_VALUE;
+            int to = maxAge != null ? maxAge : Integer.MAX_VALUE;
+            if (from > to) {
+                return result;
+            }
+            for (Set<Integer> ids : ageIndex.subMap(from, true, to, true).values()) {
+                collectMatching(ids, gender, minAge, maxAge, result);
+            }
+        } else if (gender != null) {
+            collectMatching(genderIndex.get(gender), gender, null, null, result);
+        } else {
+            return findAll();
+        }
+
+        result.sort(Comparator.comparing(Student::getId));
+        return result;
+    }
+
+    private void collectMatching(Collection<Integer> ids, Student.Gender gender,
+                                 Integer minAge, Integer maxAge, List<Student> result) {
+        for (Integer id : ids) {
+            Student student = students.get(id);
+            if (student != null && matches(student, gender, minAge, maxAge)) {
+                result.add(student);
+            }
+        }
+    }
+
+    private static boolean matches(Student student, Student.Gender gender, Integer minAge, Integer maxAge) {
+        if (gender != null && gender != student.getGender()) {
+            return false;
+        }
+        Integer age = student.getAge();
+        if (minAge != null && (age == null || age < minAge)) {
+            return false;
+        }
+        return maxAge == null || (age != null && age <= maxAge);
+    }
+
+    @Override
+    public List<Student> searchByName(String query, int limit) {
+        List<Student> result = new ArrayList<>();
+        for (Integer id : nameIndex.search(query, limit)) {
+            Student student = students.get(id);
+            if (student != null) {
+                result.add(student);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public StudentStats stats() {
+        return stats.snapshot();
+    }
 
-        return students;
+    @Override
+    public long collectionVersion() {
+        return snapshot.get().version();
+    }
+
+    @Override
+    public long recordVersion(Integer id) {
+        if (id == null) {
+            return -1;
+        }
+        return snapshot.get().versionOf(id);
     }
 
     @Override
     public void update(Integer id, Student student) {
-        Student existingStudent = findById(id);
-        if (existingStudent != null) {
-            // Cập nhật thông tin student tìm được bằng thông tin mới
-            existingStudent.setName(student.getName());
-            existingStudent.setAge(student.getAge());
-            existingStudent.setGender(student.getGender());
-            System.out.println("cap nhat thanh cong student");
+        if (id == null) {
+            return;
+        }
+        // computeIfPresent khóa riêng bucket của id này, các id khác vẫn ghi song song được.
+        // Thay bằng object mới thay vì sửa object cũ để reader không thấy trạng thái ghi dở.
+        Student replaced = students.computeIfPresent(id, (key, existing) -> {
+            Student replacement = new ReadOnlyStudent(key, student);
+            unindex(existing);
+            index(replacement);
+            return replacement;
+        });
+        if (replaced != null) {
+            publish(id);
         }
     }
 
     @Override
     public void create(Student student) {
+        int id = nextId.getAndIncrement();
+        student.setId(id);
+        // Lưu bản copy để caller giữ object request không sửa được dữ liệu trong store
+        Student stored = new ReadOnlyStudent(id, student);
 
-        student.setId(this.nextId);
+        students.compute(id, (key, existing) -> {
+            index(stored);
+            return stored;
+        });
+        orderedIds.add(id);
+        publish(id);
+    }
 
-        // 2. Thêm đối tượng sinh viên đã có ID vào List
-        students.add(student);
-        System.out.println("them thanh cong student");
+    @Override
+    public void delete(Integer id) {
+        if (id == null) {
+            return;
+        }
+        if (!orderedIds.remove(id)) {
+            return;
+        }
+        students.computeIfPresent(id, (key, existing) -> {
+            unindex(existing);
+            return null;
+        });
+        publish(id);
+    }
 
+    @Override
+    public void restore(Student student) {
+        Integer id = student.getId();
+        students.compute(id, (key, existing) -> {
+            if (existing != null) {
+                unindex(existing);
+            }
+            Student restored = new ReadOnlyStudent(key, student);
+            index(restored);
+            return restored;
+        });
+        orderedIds.add(id);
+        publish(id);
+        advanceIdSequence(id);
+    }
 
-        // 3. Tăng bộ đếm ID cho lần tạo tiếp theo
-        this.nextId++;
+    @Override
+    public int allocateId() {
+        return nextId.getAndIncrement();
     }
 
     @Override
-    public void delete(Integer id) {
-        Student studentToDelete = findById(id);
-        if (studentToDelete != null) {
-            students.remove(studentToDelete);
-            System.out.println("xoa thanh cong student");
+    public void advanceIdSequence(int lastAssignedId) {
+        nextId.accumulateAndGet(lastAssignedId + 1, Math::max);
+    }
 
+    /**
+     * Gọi sau khi compute() của id đã trả về, tức là bản ghi mới đã có trong map và các index.
+     * Dòng được đọc lại từ map ở mỗi lần thử CAS: hai lần ghi song song lên cùng id có thể publish theo thứ tự
+     * ngược với compute(), nhưng CAS thành công sau cùng luôn đọc map sau lần ghi cuối (null = đã xóa)
+     */
+    private void publish(Integer id) {
+        snapshot.updateAndGet(current -> current.with(id, students.get(id)));
+    }
+
+    private void index(Student student) {
+        if (student.getAge() != null) {
+            ageIndex.computeIfAbsent(student.getAge(), age -> ConcurrentHashMap.newKeySet()).add(student.getId());
+        }
+        if (student.getGender() != null) {
+            genderIndex.get(student.getGender()).add(student.getId());
+        }
+        nameIndex.add(student.getId(), student.getName());
+        stats.add(student);
+    }
+
+    private void unindex(Student student) {
+        // Bucket tuổi rỗng được giữ lại: số lượng giá trị tuổi rất nhỏ, và xóa bucket sẽ race với index()
+        if (student.getAge() != null) {
+            Set<Integer> ids = ageIndex.get(student.getAge());
+            if (ids != null) {
+                ids.remove(student.getId());
+            }
+        }
+        if (student.getGender() != null) {
+            genderIndex.get(student.getGender()).remove(student.getId());
         }
+        nameIndex.remove(student.getId(), student.getName());
+        stats.remove(student);
     }
 }
@@ -0,0 +1,184 @@
+package com.example.mindxinternbackend.dao;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary mã hóa cột name của ColumnarStudentDao: mỗi tên khác nhau được lưu một lần (UTF-8)
+ * trong một arena off-heap, các dòng chỉ giữ mã int của tên.
+ *
+ * Tra cứu tên -> mã dùng bảng băm open addressing trên int[] và so sánh byte trực tiếp trong arena,
+ * nên không giữ thêm String nào trên heap.
+ *
+ * Mỗi mã có bộ đếm số dòng đang dùng (intern tăng, release giảm). Mã về 0 vẫn nằm trong arena (intern lại
+ * cùng tên thì dùng lại) cho tới khi compact(): khi số byte chết vượt một nửa arena, ColumnarStudentDao
+ * gọi compact() để chép các tên còn dùng sang arena mới vừa đủ và đánh lại mã cho các dòng.
+ * Không thread-safe: ColumnarStudentDao gọi khi đang giữ lock.
+ */
+class StudentNameDictionary {
+
+    private ByteBuffer arena = ByteBuffer.allocateDirect(64 * 1024);
+    private int[] offsets = new int[1024];
+    private int[] lengths = new int[1024];
+    private int[] references = new int[1024];
+    private int size;
+    /** tổng số byte của các mã không còn dòng nào dùng */
+    private long deadBytes;
+
+    /** slot chứa (mã + 1), 0 = trống */
+    private int[] slots = new int[2048];
+
+    /**
+     * Mã của tên, tính thêm một dòng đang dùng mã này
+     */
+    int intern(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.length - 1;
+        int slot = Arrays.hashCode(bytes) & mask;
+        while (slots[slot] != 0) {
+            int code = slots[slot] - 1;
+            if (equalsAt(code, bytes)) {
+                if (references[code]++ == 0) {
+                    deadBytes -= lengths[code];
+                }
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int code = append(bytes);
+        references[code] = 1;
+        slots[slot] = code + 1;
+        // Giữ load factor <= 0.5
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return code;
+    }
+
+    String get(int code) {
+        byte[] bytes = new byte[lengths[code]];
+        arena.get(offsets[code], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bớt một dòng đang dùng mã (dòng bị xóa hoặc đổi tên)
+     */
+    void release(int code) {
+        if (--references[code] == 0) {
+            deadBytes += lengths[code];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Số byte đang dùng: arena off-heap + các mảng index trên heap
+     */
+    long memoryBytes() {
+        return arena.capacity() + 4L * (offsets.length + lengths.length + references.length + slots.length);
+    }
+
+    /**
+     * Đáng compact khi tên chết chiếm quá nửa phần đã ghi của arena (bỏ qua arena còn nhỏ)
+     */
+    boolean needsCompaction() {
+        return deadBytes > 64 * 1024 && deadBytes * 2 > arena.position();
+    }
+
+    /**
+     * Chép các tên còn được dùng sang arena mới, theo thứ tự mã cũ
+     *
+     * @return mảng ánh xạ mã cũ -> mã mới, -1 với mã không còn dòng nào dùng
+     */
+    int[] compact() {
+        int liveBytes = (int) (arena.position() - deadBytes);
+        ByteBuffer compacted = ByteBuffer.allocateDirect(Math.max(64 * 1024, liveBytes * 2));
+        int[] remap = new int[size];
+        int liveCount = 0;
+        byte[] bytes = new byte[0];
+        for (int code = 0; code < size; code++) {
+            if (references[code] == 0) {
+                remap[code] = -1;
+                continue;
+            }
+            if (bytes.length != lengths[code]) {
+                bytes = new byte[lengths[code]];
+            }
+            arena.get(offsets[code], bytes);
+            offsets[liveCount] = compacted.position();
+            lengths[liveCount] = lengths[code];
+            references[liveCount] = references[code];
+            compacted.put(bytes);
+            remap[code] = liveCount++;
+        }
+
+        arena = compacted;
+        size = liveCount;
+        deadBytes = 0;
+        int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, size)) * 2);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        references = Arrays.copyOf(references, capacity);
+        slots = new int[capacity * 2];
+        rehash(slots);
+        return remap;
+    }
+
+    private boolean equalsAt(int code, byte[] bytes) {
+        if (lengths[code] != bytes.length) {
+            return false;
+        }
+        int offset = offsets[code];
+        for (int i = 0; i < bytes.length; i++) {
+            if (arena.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int append(byte[] bytes) {
+        if (arena.capacity() - arena.position() < bytes.length) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(arena.capacity() * 2, arena.position() + bytes.length));
+            arena.flip();
+            larger.put(arena);
+            arena = larger;
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            references = Arrays.copyOf(references, size * 2);
+        }
+        offsets[size] = arena.position();
+        lengths[size] = bytes.length;
+        arena.put(bytes);
+        return size++;
+    }
+
+    private void rehash() {
+        int[] larger = new int[slots.length * 2];
+        rehash(larger);
+        slots = larger;
+    }
+
+    private void rehash(int[] larger) {
+        int mask = larger.length - 1;
+        byte[] bytes = new byte[0];
+        for (int code = 0; code < size; code++) {
+            if (bytes.length != lengths[code]) {
+                bytes = new byte[lengths[code]];
+            }
+            arena.get(offsets[code], bytes);
+            int slot = Arrays.hashCode(bytes) & mask;
+            while (larger[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            larger[slot] = code + 1;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.mindxinternbackend.dao;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Inverted index trigram trên tên student, không phân biệt dấu tiếng Việt
+ * ("Hoàng Ngọc Vương" và "hoang ngoc vuong" cho cùng một tập trigram).
+ *
+ * - Tên được fold: lowercase, đ -> d, bỏ dấu (NFD + bỏ combining mark), gộp khoảng trắng
+ * - Tên giống nhau sau khi fold chỉ được index một lần (dictionary): trigram -> tập tên đã fold,
+ *   tên đã fold -> tập id. Tên tiếng Việt trùng nhau rất nhiều nên số tên phải chấm điểm nhỏ hơn
+ *   nhiều so với số bản ghi
+ * - Mỗi trigram (3 ký tự, encode thành long) trỏ tới tập tên chứa nó
+ * - Query chỉ đệm khoảng trắng ở đầu nên gõ dở một từ vẫn match như prefix
+ *
+ * Khi search, các trigram hiếm nhất được dùng để sinh ứng viên (không quét cả posting list của
+ * những trigram phổ biến như " ng"), sau đó mỗi tên ứng viên được chấm điểm bằng số trigram khớp.
+ */
+class StudentNameIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final ConcurrentMap<Long, Set<String>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Integer>> idsByName = new ConcurrentHashMap<>();
+
+    void add(Integer id, String name) {
+        if (id == null || name == null) {
+            return;
+        }
+        // compute() trên tên đã fold tuần tự hóa add/remove của cùng một tên
+        idsByName.compute(fold(name), (folded, ids) -> {
+            if (ids == null) {
+                ids = new ConcurrentSkipListSet<>();
+                for (long gram : grams(" " + folded + " ")) {
+                    postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(folded);
+                }
+            }
+            ids.add(id);
+            return ids;
+        });
+    }
+
+    void remove(Integer id, String name) {
+        if (id == null || name == null) {
+            return;
+        }
+        idsByName.computeIfPresent(fold(name), (folded, ids) -> {
+            ids.remove(id);
+            if (!ids.isEmpty()) {
+                return ids;
+            }
+            for (long gram : grams(" " + folded + " ")) {
+                Set<String> names = postings.get(gram);
+                if (names != null) {
+                    names.remove(folded);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Trả về tối đa limit id, xếp hạng theo: số trigram khớp, chứa nguyên chuỗi query, tên ngắn hơn, id
+     */
+    List<Integer> search(String query, int limit) {
+        String foldedQuery = fold(query);
+        if (foldedQuery.length() < GRAM_SIZE - 1) {
+            return List.of();
+        }
+
+        long[] queryGrams = grams(" " + foldedQuery);
+        List<Set<String>> lists = new ArrayList<>(queryGrams.length);
+        for (long gram : queryGrams) {
+            lists.add(postings.getOrDefault(gram, Set.of()));
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        // Cho phép lệch 1 trigram với query dài (gõ sai một ký tự).
+        // Ứng viên thiếu tối đa allowedMisses trigram chắc chắn nằm trong (allowedMisses + 1) list hiếm nhất.
+        int allowedMisses = queryGrams.length >= 4 ? 1 : 0;
+        int minScore = queryGrams.length - allowedMisses;
+
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i <= allowedMisses; i++) {
+            candidates.addAll(lists.get(i));
+        }
+
+        // Giữ top-limit tên; mỗi tên có ít nhất một id nên limit tên là đủ cho limit id
+        PriorityQueue<Hit> top = new PriorityQueue<>(Hit.RANKING.reversed());
+        for (String folded : candidates) {
+            int score = 0;
+            for (Set<String> names : lists) {
+                if (names.contains(folded)) {
+                    score++;
+                }
+            }
+            if (score < minScore) {
+                continue;
+            }
+            top.offer(new Hit(folded, score, folded.contains(foldedQuery)));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Hit.RANKING);
+        List<Integer> result = new ArrayList<>(limit);
+        for (Hit hit : hits) {
+            for (Integer id : idsByName.getOrDefault(hit.name(), Set.of())) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fold chuỗi tiếng Việt về dạng không dấu, lowercase, khoảng trắng đơn
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static long[] grams(String text) {
+        int count = text.length() - GRAM_SIZE + 1;
+        if (count <= 0) {
+            return new long[0];
+        }
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        // Bỏ trigram trùng lặp để điểm không bị tính hai lần
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private record Hit(String name, int score, boolean containsQuery) {
+        static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(Hit::containsQuery, Comparator.reverseOrder())
+            .thenComparingInt((Hit hit) -> hit.name().length())
+            .thenComparing(Hit::name);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.entity.Student;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encode/decode nhị phân một dòng Student, dùng chung cho log và snapshot của DurableStudentDao
+ *
+ * Layout một dòng: id (int) | age (int, -1 = null) | gender (byte, -1 = null) | name length (int, -1 = null) | name UTF-8
+ */
+final class StudentRecordCodec {
+
+    private StudentRecordCodec() {
+        // Utility class
+    }
+
+    static byte[] nameBytes(Student student) {
+        return student.getName() == null ? null : student.getName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int rowSize(byte[] nameBytes) {
+        return Integer.BYTES + Integer.BYTES + 1 + Integer.BYTES + (nameBytes == null ? 0 : nameBytes.length);
+    }
+
+    static void writeRow(ByteBuffer buffer, Student student, byte[] nameBytes) {
+        buffer.putInt(student.getId());
+        buffer.putInt(student.getAge() == null ? -1 : student.getAge());
+        buffer.put(student.getGender() == null ? -1 : (byte) student.getGender().ordinal());
+        if (nameBytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(nameBytes.length);
+            buffer.put(nameBytes);
+        }
+    }
+
+    static Student readRow(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        int age = buffer.getInt();
+        byte gender = buffer.get();
+        int nameLength = buffer.getInt();
+        String name = null;
+        if (nameLength >= 0) {
+            byte[] bytes = new byte[nameLength];
+            buffer.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Student(
+            id,
+            name,
+            age < 0 ? null : age,
+            gender < 0 ? null : Student.Gender.values()[gender]
+        );
+    }
+}
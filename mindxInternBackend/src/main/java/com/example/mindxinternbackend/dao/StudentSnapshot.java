@@ -0,0 +1,256 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.entity.Student;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Ảnh bất biến của toàn bộ student tại một version, sắp xếp theo id, do writer publish sau mỗi lần ghi.
+ *
+ * Dữ liệu chia thành các chunk theo dải id (64 id liên tiếp một chunk), mỗi chunk là các mảng
+ * id/row/version đã nén (không có lỗ) và sắp xếp; 64 chunk liên tiếp gom thành một segment.
+ * with() chỉ copy chunk chứa id, segment của nó và mảng tham chiếu segment, phần còn lại dùng chung
+ * với snapshot cũ: mỗi lần ghi copy O(64 + 64 + n / 4096) phần tử thay vì O(n), và reader giữ
+ * snapshot cũ không bao giờ thấy thay đổi.
+ *
+ * versionOf là O(log 64). Duyệt (iterator/forEach/stream) đi thẳng qua các chunk; get(index)
+ * cần bảng offset của các chunk, được dựng lười ở lần gọi đầu tiên trên mỗi snapshot.
+ */
+final class StudentSnapshot extends AbstractList<Student> {
+
+    private static final int CHUNK_BITS = 6;
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private static final Chunk EMPTY_CHUNK = new Chunk(new int[0], new Student[0], new long[0]);
+
+    static final StudentSnapshot EMPTY = new StudentSnapshot(0, new Chunk[0][], 0);
+
+    private final long version;
+    private final Chunk[][] segments;
+    private final int size;
+    /** các chunk khác rỗng theo thứ tự và offset của chúng, dựng lười; race chỉ làm dựng lại cùng kết quả */
+    private volatile IndexTable indexTable;
+
+    private record IndexTable(Chunk[] chunks, int[] starts) {
+    }
+
+    private record Chunk(int[] ids, Student[] rows, long[] versions) {
+
+        int indexOf(int id) {
+            return Arrays.binarySearch(ids, id);
+        }
+
+        /**
+         * Bản copy với dòng id được thay bằng row (null = bỏ dòng)
+         */
+        Chunk with(int id, Student row, long version) {
+            int position = indexOf(id);
+            if (position >= 0 && row != null) {
+                Student[] nextRows = rows.clone();
+                long[] nextVersions = versions.clone();
+                nextRows[position] = row;
+                nextVersions[position] = version;
+                return new Chunk(ids, nextRows, nextVersions);
+            }
+            if (position >= 0) {
+                return new Chunk(remove(ids, position), remove(rows, position), remove(versions, position));
+            }
+            if (row == null) {
+                return this;
+            }
+            int insertAt = -position - 1;
+            int[] nextIds = new int[ids.length + 1];
+            Student[] nextRows = new Student[ids.length + 1];
+            long[] nextVersions = new long[ids.length + 1];
+            System.arraycopy(ids, 0, nextIds, 0, insertAt);
+            System.arraycopy(rows, 0, nextRows, 0, insertAt);
+            System.arraycopy(versions, 0, nextVersions, 0, insertAt);
+            nextIds[insertAt] = id;
+            nextRows[insertAt] = row;
+            nextVersions[insertAt] = version;
+            System.arraycopy(ids, insertAt, nextIds, insertAt + 1, ids.length - insertAt);
+            System.arraycopy(rows, insertAt, nextRows, insertAt + 1, ids.length - insertAt);
+            System.arraycopy(versions, insertAt, nextVersions, insertAt + 1, ids.length - insertAt);
+            return new Chunk(nextIds, nextRows, nextVersions);
+        }
+
+        private static int[] remove(int[] source, int position) {
+            int[] target = new int[source.length - 1];
+            System.arraycopy(source, 0, target, 0, position);
+            System.arraycopy(source, position + 1, target, position, target.length - position);
+            return target;
+        }
+
+        private static Student[] remove(Student[] source, int position) {
+            Student[] target = new Student[source.length - 1];
+            System.arraycopy(source, 0, target, 0, position);
+            System.arraycopy(source, position + 1, target, position, target.length - position);
+            return target;
+        }
+
+        private static long[] remove(long[] source, int position) {
+            long[] target = new long[source.length - 1];
+            System.arraycopy(source, 0, target, 0, position);
+            System.arraycopy(source, position + 1, target, position, target.length - position);
+            return target;
+        }
+    }
+
+    private StudentSnapshot(long version, Chunk[][] segments, int size) {
+        this.version = version;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Snapshot kế tiếp (version + 1) với dòng id được thay bằng row, null nghĩa là bản ghi đã bị xóa.
+     * Dòng được ghi nhận version mới làm version của bản ghi
+     */
+    StudentSnapshot with(int id, Student row) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id không hợp lệ: " + id);
+        }
+        long nextVersion = version + 1;
+        int segmentIndex = id >>> (CHUNK_BITS + SEGMENT_BITS);
+        int chunkIndex = (id >>> CHUNK_BITS) & (SEGMENT_SIZE - 1);
+
+        Chunk[][] nextSegments = Arrays.copyOf(segments, Math.max(segments.length, segmentIndex + 1));
+        Chunk[] segment = segmentIndex < segments.length ? segments[segmentIndex].clone() : emptySegment();
+        Chunk current = segment[chunkIndex];
+        Chunk updated = current.with(id, row, nextVersion);
+        segment[chunkIndex] = updated;
+        for (int i = segments.length; i < nextSegments.length; i++) {
+            nextSegments[i] = i == segmentIndex ? segment : emptySegment();
+        }
+        nextSegments[segmentIndex] = segment;
+
+        int nextSize = size - current.ids().length + updated.ids().length;
+        return new StudentSnapshot(nextVersion, nextSegments, nextSize);
+    }
+
+    private static Chunk[] emptySegment() {
+        Chunk[] segment = new Chunk[SEGMENT_SIZE];
+        Arrays.fill(segment, EMPTY_CHUNK);
+        return segment;
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * Version của lần ghi cuối cùng lên id, -1 nếu id không có trong snapshot
+     */
+    long versionOf(int id) {
+        Chunk chunk = chunkOf(id);
+        int position = chunk.indexOf(id);
+        return position >= 0 ? chunk.versions()[position] : -1;
+    }
+
+    private Chunk chunkOf(int id) {
+        int segmentIndex = id >>> (CHUNK_BITS + SEGMENT_BITS);
+        if (id < 0 || segmentIndex >= segments.length) {
+            return EMPTY_CHUNK;
+        }
+        return segments[segmentIndex][(id >>> CHUNK_BITS) & (SEGMENT_SIZE - 1)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Student get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        IndexTable table = indexTable();
+        int chunk = Arrays.binarySearch(table.starts(), index);
+        if (chunk < 0) {
+            chunk = -chunk - 2;
+        }
+        return table.chunks()[chunk].rows()[index - table.starts()[chunk]];
+    }
+
+    private IndexTable indexTable() {
+        IndexTable table = indexTable;
+        if (table == null) {
+            List<Chunk> chunks = new ArrayList<>();
+            for (Chunk[] segment : segments) {
+                for (Chunk chunk : segment) {
+                    if (chunk.ids().length > 0) {
+                        chunks.add(chunk);
+                    }
+                }
+            }
+            int[] starts = new int[chunks.size()];
+            int total = 0;
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = total;
+                total += chunks.get(i).ids().length;
+            }
+            table = new IndexTable(chunks.toArray(Chunk[]::new), starts);
+            indexTable = table;
+        }
+        return table;
+    }
+
+    @Override
+    public Iterator<Student> iterator() {
+        return new Iterator<>() {
+            private int segment;
+            private int chunk;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                while (segment < segments.length) {
+                    if (position < segments[segment][chunk].ids().length) {
+                        return true;
+                    }
+                    position = 0;
+                    if (++chunk == SEGMENT_SIZE) {
+                        chunk = 0;
+                        segment++;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return segments[segment][chunk].rows()[position++];
+            }
+        };
+    }
+
+    @Override
+    public void forEach(Consumer<? super Student> action) {
+        for (Chunk[] segment : segments) {
+            for (Chunk chunk : segment) {
+                for (Student row : chunk.rows()) {
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<Student> spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+            Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentStats;
+import com.example.mindxinternbackend.entity.Student;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đếm thống kê được DAO cập nhật ngay trên write path (add khi một bản ghi xuất hiện,
+ * remove khi nó biến mất hoặc bị thay thế), nên đọc thống kê không phải quét dữ liệu.
+ *
+ * Dùng LongAdder (đếm phân tán theo cell) để các writer song song không tranh nhau một biến đếm.
+ * Đọc chỉ cộng các cell: chi phí phụ thuộc số giá trị tuổi khác nhau, không phụ thuộc số bản ghi.
+ * Các bộ đếm không được chụp cùng một lúc, nên khi đang có ghi song song, tổng và histogram
+ * có thể lệch nhau tạm thời vài bản ghi.
+ */
+class StudentStatsCounter {
+
+    private final LongAdder total = new LongAdder();
+    private final Map<Student.Gender, LongAdder> byGender = new EnumMap<>(Student.Gender.class);
+    private final LongAdder unknownGender = new LongAdder();
+    private final ConcurrentMap<Integer, LongAdder> ageHistogram = new ConcurrentSkipListMap<>();
+    private final LongAdder ageSum = new LongAdder();
+    private final LongAdder agedCount = new LongAdder();
+
+    StudentStatsCounter() {
+        // EnumMap chỉ được ghi ở đây, sau đó chỉ đọc
+        for (Student.Gender gender : Student.Gender.values()) {
+            byGender.put(gender, new LongAdder());
+        }
+    }
+
+    void add(Student student) {
+        count(student, 1);
+    }
+
+    void remove(Student student) {
+        count(student, -1);
+    }
+
+    private void count(Student student, int delta) {
+        total.add(delta);
+        if (student.getGender() == null) {
+            unknownGender.add(delta);
+        } else {
+            byGender.get(student.getGender()).add(delta);
+        }
+        Integer age = student.getAge();
+        if (age != null) {
+            // Bucket về 0 vẫn được giữ lại: số giá trị tuổi rất ít, xóa bucket sẽ race với writer khác
+            ageHistogram.computeIfAbsent(age, key -> new LongAdder()).add(delta);
+            ageSum.add((long) age * delta);
+            agedCount.add(delta);
+        }
+    }
+
+    StudentStats snapshot() {
+        Map<Student.Gender, Long> genders = new EnumMap<>(Student.Gender.class);
+        byGender.forEach((gender, count) -> genders.put(gender, count.sum()));
+
+        Map<Integer, Long> ages = new LinkedHashMap<>();
+        ageHistogram.forEach((age, count) -> {
+            long sum = count.sum();
+            if (sum > 0) {
+                ages.put(age, sum);
+            }
+        });
+
+        long aged = agedCount.sum();
+        Double averageAge = aged > 0 ? (double) ageSum.sum() / aged : null;
+        return new StudentStats(total.sum(), genders, unknownGender.sum(), ages, averageAge);
+    }
+}
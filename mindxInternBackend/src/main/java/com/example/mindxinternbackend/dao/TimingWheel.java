@@ -0,0 +1,170 @@
+package com.example.mindxinternbackend.dao;
+
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * Timing wheel phân cấp (kiểu timer của Linux kernel) để hẹn giờ hết hạn với chi phí O(1)
+ *
+ * - LEVELS tầng, mỗi tầng 64 slot. Tầng i chứa các deadline cách hiện tại < 64^(i+1) tick,
+ *   slot được chọn theo các bit tương ứng của deadline nên schedule chỉ là một phép nối vào danh sách
+ * - Mỗi tick chỉ duyệt một slot của tầng 0; khi tick chia hết cho 64^i thì slot hiện tại của tầng i
+ *   được đổ xuống các tầng thấp hơn (cascade). Không bao giờ quét toàn bộ các entry
+ * - Deadline xa hơn tầm của wheel được đặt ở tầng cao nhất và xếp lại khi tới lượt
+ * - Mỗi key có tối đa một entry: schedule lại thì dời entry cũ, cancel gỡ entry khỏi slot ngay (O(1),
+ *   slot là danh sách liên kết đôi) nên số entry không bao giờ vượt số key đang được hẹn
+ *
+ * Không thread-safe, người gọi tự đồng bộ
+ */
+final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    /** 64^4 tick: với tick 1s là khoảng 194 ngày */
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private static final class Entry {
+        private final String key;
+        private long deadlineTick;
+        private Slot slot;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Slot {
+        private Entry head;
+
+        void add(Entry entry) {
+            entry.slot = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.slot = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+
+        /**
+         * Tách toàn bộ danh sách ra khỏi slot, trả về phần tử đầu
+         */
+        Entry detach() {
+            Entry first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    private final Slot[][] slots;
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    TimingWheel(long startTick) {
+        this.currentTick = startTick;
+        this.slots = new Slot[LEVELS][SLOTS];
+        for (Slot[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Slot();
+            }
+        }
+    }
+
+    /**
+     * Hẹn key hết hạn tại deadlineTick, thay cho lần hẹn trước của key (nếu có).
+     * Deadline đã qua sẽ được trả về ở tick kế tiếp
+     */
+    void schedule(String key, long deadlineTick) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key);
+            entries.put(key, entry);
+        } else {
+            entry.slot.remove(entry);
+        }
+        entry.deadlineTick = Math.max(deadlineTick, currentTick + 1);
+        place(entry);
+    }
+
+    /**
+     * Bỏ lần hẹn của key, không làm gì nếu key không được hẹn
+     */
+    void cancel(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.slot.remove(entry);
+        }
+    }
+
+    /**
+     * Tiến wheel tới nowTick, trả các key tới hạn cho expired theo thứ tự deadline
+     */
+    void advance(long nowTick, Consumer<String> expired) {
+        while (currentTick < nowTick) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+
+            Entry entry = slots[0][(int) (currentTick & SLOT_MASK)].detach();
+            while (entry != null) {
+                Entry next = entry.next;
+                if (entry.deadlineTick <= currentTick) {
+                    entries.remove(entry.key);
+                    expired.accept(entry.key);
+                } else {
+                    place(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void cascade(int level) {
+        Entry entry = slots[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)].detach();
+        while (entry != null) {
+            Entry next = entry.next;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    private void place(Entry entry) {
+        // Deadline ngoài tầm: tạm đặt ở mép xa nhất, entry được xếp lại khi slot đó cascade
+        long target = Math.min(entry.deadlineTick, currentTick + SPAN - 1);
+        long delta = target - currentTick;
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        slots[level][(int) ((target >>> (SLOT_BITS * level)) & SLOT_MASK)].add(entry);
+    }
+}
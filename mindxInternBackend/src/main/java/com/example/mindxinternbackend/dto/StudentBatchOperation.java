@@ -0,0 +1,27 @@
+package com.example.mindxinternbackend.dto;
+
+import com.example.mindxinternbackend.entity.Student;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Một thao tác trong POST /api/students/batch
+ * - CREATE: cần student
+ * - UPDATE: cần id và student
+ * - DELETE: cần id
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentBatchOperation {
+    private Action action;
+    private Integer id;
+    private Student student;
+
+    public enum Action {
+        CREATE, UPDATE, DELETE
+    }
+}
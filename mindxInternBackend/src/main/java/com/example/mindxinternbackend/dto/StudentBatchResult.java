@@ -0,0 +1,20 @@
+package com.example.mindxinternbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Kết quả của từng thao tác trong batch, theo đúng thứ tự (index) của request
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentBatchResult {
+    private int index;
+    private boolean success;
+    private Integer id;
+    private String message;
+}
@@ -0,0 +1,27 @@
+package com.example.mindxinternbackend.dto;
+
+import com.example.mindxinternbackend.entity.Student;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Một thay đổi trên student, được đẩy qua GET /api/students/changes (SSE)
+ * sequence tăng dần và chính là id của event SSE (client gửi lại qua Last-Event-ID để resume),
+ * student = trạng thái sau khi ghi, null với DELETED
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentChangeEvent {
+    private long sequence;
+    private Type type;
+    private Integer id;
+    private Student student;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
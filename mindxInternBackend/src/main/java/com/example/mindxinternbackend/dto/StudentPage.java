@@ -0,0 +1,22 @@
+package com.example.mindxinternbackend.dto;
+
+import com.example.mindxinternbackend.entity.Student;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả của GET /api/students?after=&limit=
+ * nextCursor = id cuối cùng của trang, null nếu đã hết dữ liệu
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentPage {
+    private List<Student> items;
+    private Integer nextCursor;
+}
@@ -0,0 +1,26 @@
+package com.example.mindxinternbackend.dto;
+
+import com.example.mindxinternbackend.entity.Student;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Thống kê của GET /api/students/stats
+ * byGender không tính student chưa có gender (đếm riêng ở unknownGender),
+ * ageHistogram: tuổi -> số student, chỉ gồm các tuổi có ít nhất một student
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentStats {
+    private long total;
+    private Map<Student.Gender, Long> byGender;
+    private long unknownGender;
+    private Map<Integer, Long> ageHistogram;
+    private Double averageAge;
+}
@@ -2,6 +2,7 @@ package com.example.mindxinternbackend.exception;
 
 import com.example.mindxinternbackend.dto.AuthResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -48,6 +49,24 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Identity provider đang lỗi/quá tải: trả lời ngay 503 thay vì để request chờ IdP
+     */
+    @ExceptionHandler(IdentityProviderUnavailableException.class)
+    public ResponseEntity<AuthResponse> handleIdentityProviderUnavailable(IdentityProviderUnavailableException ex) {
+        log.warn("Identity provider unavailable: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+            .body(
+                new AuthResponse(
+                    false,
+                    "Identity provider is temporarily unavailable, please try again later",
+                    null
+                )
+            );
+    }
+
     /**
      * Xử lý RuntimeException
      */
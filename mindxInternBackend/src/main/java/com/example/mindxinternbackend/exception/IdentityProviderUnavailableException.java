@@ -0,0 +1,20 @@
+package com.example.mindxinternbackend.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Không gọi identity provider vì circuit breaker đang mở, bulkhead đã đầy hoặc đã hết deadline
+ * GlobalExceptionHandler trả về 503 kèm Retry-After
+ */
+@Getter
+public class IdentityProviderUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public IdentityProviderUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dto.AuthResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Nơi lưu trạng thái đăng nhập (user + id_token) giữa các request của AuthController
+ * Chọn implementation bằng auth.session.mode (xem AuthSessionConfig)
+ */
+public interface AuthSessionStore {
+
+    /**
+     * Lưu user đã đăng nhập thành công
+     *
+     * @param idToken - id_token để dùng làm id_token_hint khi logout, có thể null
+     */
+    void signIn(HttpServletRequest request, HttpServletResponse response, AuthResponse.UserInfo user, String idToken);
+
+    /**
+     * @return user đang đăng nhập, null nếu chưa đăng nhập/phiên hết hạn/không hợp lệ
+     */
+    AuthResponse.UserInfo currentUser(HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * @return id_token của phiên hiện tại, null nếu không có
+     */
+    String idToken(HttpServletRequest request);
+
+    /**
+     * Xóa phiên hiện tại
+     *
+     * @return user của phiên vừa xóa (để ghi log), null nếu không có
+     */
+    AuthResponse.UserInfo signOut(HttpServletRequest request, HttpServletResponse response);
+}
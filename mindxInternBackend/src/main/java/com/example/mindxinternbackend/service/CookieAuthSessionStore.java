@@ -0,0 +1,189 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dto.AuthResponse;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * auth.session.mode=cookie: phiên đăng nhập nằm hoàn toàn trong một cookie mã hóa, server không giữ gì
+ * Replica nào cũng đọc được cookie (chỉ cần cùng bộ key), không cần sticky session hay store dùng chung
+ *
+ * Định dạng cookie: v1.{kid}.{base64url(iv 12 byte || ciphertext || tag)}, xem SealedCookieCodec
+ * - AES-GCM: vừa mã hóa vừa xác thực (tag 128 bit), sửa bất kỳ byte nào đều bị từ chối.
+ *   "v1.{kid}" là associated data nên không đổi được version/kid mà không làm hỏng tag
+ * - Plaintext là JSON tên field ngắn của user + id_token + thời điểm hết hạn (tuyệt đối, không trượt)
+ * - Xoay key: key đầu tiên trong danh sách dùng để mã hóa, mọi key trong danh sách đều giải mã được.
+ *   Cookie mã hóa bằng key cũ được cấp lại bằng key mới ở lần đọc đầu tiên, nên sau một vòng đời
+ *   cookie có thể gỡ key cũ khỏi cấu hình
+ */
+@Slf4j
+public class CookieAuthSessionStore implements AuthSessionStore {
+
+    // Trình duyệt bỏ cookie lớn hơn ~4KB (tính cả tên và thuộc tính)
+    private static final int MAX_VALUE_LENGTH = 3800;
+    private static final String DECODED_ATTRIBUTE = CookieAuthSessionStore.class.getName() + ".session";
+
+    private final String cookieName;
+    private final SealedCookieCodec codec;
+    private final Duration ttl;
+    private final boolean secure;
+    private final String sameSite;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    /**
+     * Phiên đã giải mã. Tên JSON ngắn để cookie gọn
+     */
+    record Session(
+        @JsonProperty("u") String uid,
+        @JsonProperty("e") String email,
+        @JsonProperty("n") String name,
+        @JsonProperty("p") String picture,
+        @JsonProperty("t") String idToken,
+        @JsonProperty("x") long expiresAt
+    ) {
+    }
+
+    /**
+     * @param keys - kid -> key AES (16/24/32 byte), key đầu tiên theo thứ tự duyệt là key đang dùng để mã hóa
+     */
+    public CookieAuthSessionStore(String cookieName, Map<String, SecretKey> keys, Duration ttl,
+                                  boolean secure, String sameSite, ObjectMapper objectMapper, Clock clock) {
+        this.cookieName = cookieName;
+        this.codec = new SealedCookieCodec(keys, "");
+        this.ttl = ttl;
+        this.secure = secure;
+        this.sameSite = sameSite;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    @Override
+    public void signIn(HttpServletRequest request, HttpServletResponse response,
+                       AuthResponse.UserInfo user, String idToken) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        Session session = new Session(user.getUid(), user.getEmail(), user.getName(), user.getPicture(),
+            idToken, expiresAt);
+        request.setAttribute(DECODED_ATTRIBUTE, session);
+        writeCookie(response, session);
+    }
+
+    @Override
+    public AuthResponse.UserInfo currentUser(HttpServletRequest request, HttpServletResponse response) {
+        Session session = read(request, response);
+        if (session == null) {
+            return null;
+        }
+        return new AuthResponse.UserInfo(session.uid(), session.email(), session.name(), session.picture());
+    }
+
+    @Override
+    public String idToken(HttpServletRequest request) {
+        Session session = read(request, null);
+        return session != null ? session.idToken() : null;
+    }
+
+    @Override
+    public AuthResponse.UserInfo signOut(HttpServletRequest request, HttpServletResponse response) {
+        AuthResponse.UserInfo user = currentUser(request, null);
+        request.removeAttribute(DECODED_ATTRIBUTE);
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie("", Duration.ZERO).toString());
+        return user;
+    }
+
+    /**
+     * Giải mã cookie của request (mỗi request chỉ giải mã một lần)
+     *
+     * @param response - khác null thì cấp lại cookie bằng key hiện tại nếu cookie dùng key cũ
+     */
+    private Session read(HttpServletRequest request, HttpServletResponse response) {
+        if (request.getAttribute(DECODED_ATTRIBUTE) instanceof Session cached) {
+            return isExpired(cached) ? null : cached;
+        }
+        String value = cookieValue(request);
+        if (value == null) {
+            return null;
+        }
+
+        SealedCookieCodec.Opened opened = codec.open(value);
+        Session session = opened != null ? parse(opened.plaintext()) : null;
+        if (session == null || isExpired(session)) {
+            return null;
+        }
+
+        request.setAttribute(DECODED_ATTRIBUTE, session);
+        if (response != null && opened.retiredKey()) {
+            writeCookie(response, session);
+        }
+        return session;
+    }
+
+    private boolean isExpired(Session session) {
+        return clock.instant().getEpochSecond() >= session.expiresAt();
+    }
+
+    private String cookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookieName.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(HttpServletResponse response, Session session) {
+        String value = encrypt(session);
+        if (value.length() > MAX_VALUE_LENGTH && session.idToken() != null) {
+            // id_token quá lớn: bỏ id_token (logout vẫn chạy, chỉ thiếu id_token_hint) thay vì mất cả phiên
+            log.warn("Session cookie too large ({} chars), dropping id_token", value.length());
+            value = encrypt(new Session(session.uid(), session.email(), session.name(), session.picture(),
+                null, session.expiresAt()));
+        }
+        Duration maxAge = Duration.ofSeconds(Math.max(0, session.expiresAt() - clock.instant().getEpochSecond()));
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie(value, maxAge).toString());
+    }
+
+    private ResponseCookie cookie(String value, Duration maxAge) {
+        return ResponseCookie.from(cookieName, value)
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite(sameSite)
+            .path("/")
+            .maxAge(maxAge)
+            .build();
+    }
+
+    private String encrypt(Session session) {
+        try {
+            return codec.seal(objectMapper.writeValueAsBytes(session));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encrypt session cookie", e);
+        }
+    }
+
+    private Session parse(byte[] plaintext) {
+        try {
+            return objectMapper.readValue(plaintext, Session.class);
+        } catch (IOException e) {
+            // Tag hợp lệ nhưng plaintext không phải Session (vd. định dạng cũ): coi như chưa đăng nhập
+            log.debug("Rejected session cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.mindxinternbackend.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * auth.login.transaction-store=cookie (mặc định): lượt đăng nhập nằm trong một cookie AES-GCM ngắn hạn
+ * do /login-url cấp, server không giữ gì. Replica nào có cùng bộ key auth.session.cookie.keys cũng
+ * hoàn tất được callback, không cần sticky session hay store dùng chung
+ *
+ * - Mỗi lượt một cookie riêng, tên theo hash của state, nên nhiều tab đăng nhập song song không ghi đè
+ *   nhau. Path chỉ là /api/auth/callback để cookie không đi kèm các request khác
+ * - Mã hóa bằng SealedCookieCodec với purpose "login": không dùng được cookie phiên thay cho cookie này
+ * - consume() chỉ nhận cookie có đúng state của callback và xóa cookie trong response. Trình duyệt khác
+ *   (không có cookie) không dùng được state/code bị lộ
+ * - Mỗi state chỉ consume được một lần: pod giữ hash của các state đã dùng tới khi cookie tương ứng hết hạn
+ *   (ConcurrentHashMap + hàng đợi FIFO như InMemoryLoginTransactionStore, tối đa maxConsumed hash), nên
+ *   gửi lại cùng cookie (replay, request song song) bị từ chối dù cookie chưa hết hạn.
+ *   Danh sách này nằm trong từng pod: replay sang replica khác trong lúc cookie còn hạn không bị phát hiện
+ */
+@Slf4j
+public class CookieLoginTransactionStore implements LoginTransactionStore {
+
+    private static final String PURPOSE = "login";
+    private static final String COOKIE_PATH = "/api/auth/callback";
+    /** 96 bit đầu của SHA-256(state), base64url */
+    private static final int NAME_HASH_BYTES = 12;
+
+    private final String cookiePrefix;
+    private final SealedCookieCodec codec;
+    private final Duration ttl;
+    private final boolean secure;
+    private final String sameSite;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    private record Used(String stateHash, long expiresAtMillis) {
+    }
+
+    // hash(state) -> hạn của cookie; sau hạn đó cookie tự bị từ chối nên không cần nhớ nữa
+    private final ConcurrentHashMap<String, Long> usedStates = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Used> usedByAge = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger usedCount = new AtomicInteger();
+    private final int maxConsumed;
+
+    private final Counter started;
+    private final Counter consumed;
+    private final Counter rejected;
+    private final Counter evicted;
+
+    /**
+     * Lượt đăng nhập trong cookie. Tên JSON ngắn để cookie gọn
+     */
+    record Sealed(
+        @JsonProperty("s") String state,
+        @JsonProperty("n") String nonce,
+        @JsonProperty("r") String redirectUri,
+        @JsonProperty("x") long expiresAtMillis
+    ) {
+    }
+
+    /**
+     * @param keys        - cùng bộ key với cookie phiên (auth.session.cookie.keys), key đầu tiên dùng để mã hóa
+     * @param maxConsumed - số state đã dùng tối đa được nhớ để chặn dùng lại
+     */
+    public CookieLoginTransactionStore(String cookiePrefix, Map<String, SecretKey> keys, Duration ttl,
+                                       int maxConsumed, boolean secure, String sameSite, ObjectMapper objectMapper,
+                                       Clock clock, MeterRegistry meterRegistry) {
+        this.cookiePrefix = cookiePrefix;
+        this.codec = new SealedCookieCodec(keys, PURPOSE);
+        this.ttl = ttl;
+        this.maxConsumed = maxConsumed;
+        this.secure = secure;
+        this.sameSite = sameSite;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+
+        this.started = Counter.builder("auth.login.transactions").tag("outcome", "started").register(meterRegistry);
+        this.consumed = Counter.builder("auth.login.transactions").tag("outcome", "consumed").register(meterRegistry);
+        this.rejected = Counter.builder("auth.login.transactions").tag("outcome", "rejected").register(meterRegistry);
+        this.evicted = Counter.builder("auth.login.transactions").tag("outcome", "evicted").register(meterRegistry);
+        Gauge.builder("auth.login.transactions.consumed-states", usedStates, ConcurrentHashMap::size)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Transaction begin(HttpServletRequest request, HttpServletResponse response,
+                             String redirectUri, String state, String nonce) {
+        String key = state == null || state.isEmpty() ? RandomTokens.randomToken() : state;
+        Transaction transaction = new Transaction(key, nonce != null ? nonce : RandomTokens.randomToken(),
+            redirectUri, clock.millis() + ttl.toMillis());
+        try {
+            String value = codec.seal(objectMapper.writeValueAsBytes(new Sealed(transaction.state(),
+                transaction.nonce(), transaction.redirectUri(), transaction.expiresAtMillis())));
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie(cookieName(key), value, ttl).toString());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encrypt login cookie", e);
+        }
+        started.increment();
+        return transaction;
+    }
+
+    @Override
+    public Transaction consume(HttpServletRequest request, HttpServletResponse response, String state) {
+        Transaction transaction = state == null ? null : read(request, state);
+        if (transaction == null || clock.millis() >= transaction.expiresAtMillis() || !markUsed(transaction)) {
+            rejected.increment();
+            return null;
+        }
+        if (response != null) {
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie(cookieName(state), "", Duration.ZERO).toString());
+        }
+        consumed.increment();
+        return transaction;
+    }
+
+    /**
+     * Giá trị (đã mã hóa) của cookie lượt đăng nhập, chỉ trình duyệt gọi /login-url mới có
+     */
+    @Override
+    public String browserBinding(HttpServletRequest request, String state) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null || state == null) {
+            return null;
+        }
+        String name = cookieName(state);
+        for (Cookie cookie : cookies) {
+            if (name.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ghi nhận state đã dùng, false nếu state đã được dùng trước đó (putIfAbsent: chỉ một request thắng)
+     */
+    private boolean markUsed(Transaction transaction) {
+        evictExpired();
+        String stateHash = Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(transaction.state()));
+        if (usedStates.putIfAbsent(stateHash, transaction.expiresAtMillis()) != null) {
+            return false;
+        }
+        usedByAge.add(new Used(stateHash, transaction.expiresAtMillis()));
+        usedCount.incrementAndGet();
+        return true;
+    }
+
+    private void evictExpired() {
+        long now = clock.millis();
+        Used head;
+        while ((head = usedByAge.peek()) != null
+            && (head.expiresAtMillis() <= now || usedCount.get() >= maxConsumed)) {
+            if (!usedByAge.remove(head)) {
+                // Thread khác vừa lấy mất phần tử đầu
+                continue;
+            }
+            usedCount.decrementAndGet();
+            if (usedStates.remove(head.stateHash(), head.expiresAtMillis()) && head.expiresAtMillis() > now) {
+                // Bỏ một state chưa hết hạn vì vượt trần: cookie đó lại consume được trên pod này
+                evicted.increment();
+            }
+        }
+    }
+
+    private Transaction read(HttpServletRequest request, String state) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        String name = cookieName(state);
+        for (Cookie cookie : cookies) {
+            if (!name.equals(cookie.getName())) {
+                continue;
+            }
+            SealedCookieCodec.Opened opened = codec.open(cookie.getValue());
+            if (opened == null) {
+                continue;
+            }
+            try {
+                Sealed sealed = objectMapper.readValue(opened.plaintext(), Sealed.class);
+                // Tên cookie chỉ là hash rút gọn: state trong cookie phải khớp đúng state của callback
+                if (state.equals(sealed.state())) {
+                    return new Transaction(sealed.state(), sealed.nonce(), sealed.redirectUri(),
+                        sealed.expiresAtMillis());
+                }
+            } catch (IOException e) {
+                log.debug("Rejected login cookie: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private String cookieName(String state) {
+        return cookiePrefix + Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(Arrays.copyOf(sha256(state), NAME_HASH_BYTES));
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private ResponseCookie cookie(String name, String value, Duration maxAge) {
+        return ResponseCookie.from(name, value)
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite(sameSite)
+            .path(COOKIE_PATH)
+            .maxAge(maxAge)
+            .build();
+    }
+}
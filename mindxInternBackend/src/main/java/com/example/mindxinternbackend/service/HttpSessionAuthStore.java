@@ -0,0 +1,62 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dto.AuthResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * auth.session.mode=servlet (mặc định): lưu user/id_token trong HttpSession của container
+ * Phiên nằm trong heap của một pod nên cần sticky session khi chạy nhiều replica
+ *
+ * Chỉ signIn mới tạo phiên, các thao tác đọc dùng getSession(false) nên request chưa đăng nhập
+ * (vd. /api/auth/check của khách) không tạo phiên rác trong store. signIn luôn cấp id phiên mới
+ */
+public class HttpSessionAuthStore implements AuthSessionStore {
+
+    private static final String USER = "user";
+    private static final String AUTHENTICATED = "authenticated";
+    private static final String ID_TOKEN = "id_token";
+
+    @Override
+    public void signIn(HttpServletRequest request, HttpServletResponse response,
+                       AuthResponse.UserInfo user, String idToken) {
+        if (request.getSession(false) != null) {
+            // Chống session fixation: phiên có từ trước khi đăng nhập (có thể do kẻ tấn công gài) đổi sang id mới
+            request.changeSessionId();
+        }
+        HttpSession session = request.getSession();
+        session.setAttribute(USER, user);
+        session.setAttribute(AUTHENTICATED, true);
+        if (idToken != null) {
+            session.setAttribute(ID_TOKEN, idToken);
+        }
+    }
+
+    @Override
+    public AuthResponse.UserInfo currentUser(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        Object user = session.getAttribute(USER);
+        return user instanceof AuthResponse.UserInfo userInfo ? userInfo : null;
+    }
+
+    @Override
+    public String idToken(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? (String) session.getAttribute(ID_TOKEN) : null;
+    }
+
+    @Override
+    public AuthResponse.UserInfo signOut(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        Object user = session.getAttribute(USER);
+        session.invalidate();
+        return user instanceof AuthResponse.UserInfo userInfo ? userInfo : null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.mindxinternbackend.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Kiểm tra id_token ngay trong process, không cần gọi userinfo
+ *
+ * - Chữ ký: RSA/EC với key lấy từ JWKSource (JWKS của IdP được cache, xem IdTokenConfig).
+ *   Token ký bằng kid chưa có trong cache làm JWKSource tải lại JWKS (có giới hạn tần suất)
+ * - Claims: iss đúng issuer, aud chứa client_id (nhiều aud thì azp phải là client_id),
+ *   exp/nbf còn hiệu lực với sai lệch đồng hồ clockSkew, có sub/iat
+ * - nonce: phải khớp nonce đã gửi trong authorization request (khi caller biết nonce đó)
+ */
+public class IdTokenVerifier implements Closeable {
+
+    private final JWKSource<SecurityContext> jwkSource;
+    private final ConfigurableJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+    private final String clientId;
+
+    public IdTokenVerifier(JWKSource<SecurityContext> jwkSource, String issuer, String clientId, Duration clockSkew) {
+        this.jwkSource = jwkSource;
+        this.clientId = clientId;
+
+        // Không chấp nhận HS* (khóa đối xứng) hay "none": id_token phải được ký bằng key công khai của IdP
+        Set<JWSAlgorithm> algorithms = new HashSet<>(JWSAlgorithm.Family.RSA);
+        algorithms.addAll(JWSAlgorithm.Family.EC);
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, jwkSource));
+
+        DefaultJWTClaimsVerifier<SecurityContext> claimsVerifier = new DefaultJWTClaimsVerifier<>(
+            clientId,
+            new JWTClaimsSet.Builder().issuer(issuer).build(),
+            Set.of("sub", "iat", "exp")
+        );
+        claimsVerifier.setMaxClockSkew((int) clockSkew.toSeconds());
+        processor.setJWTClaimsSetVerifier(claimsVerifier);
+    }
+
+    /**
+     * @param expectedNonce - nonce đã gửi lúc tạo login URL, null nếu không biết (bỏ qua kiểm tra nonce)
+     * @return claims của token khi chữ ký và mọi claim đều hợp lệ
+     */
+    public JWTClaimsSet verify(String idToken, String expectedNonce) throws InvalidIdTokenException {
+        JWTClaimsSet claims;
+        try {
+            claims = processor.process(idToken, null);
+        } catch (ParseException | BadJOSEException | JOSEException e) {
+            throw new InvalidIdTokenException("Invalid id_token: " + e.getMessage(), e);
+        }
+
+        List<String> audience = claims.getAudience();
+        if (audience.size() > 1 && !clientId.equals(claims.getClaim("azp"))) {
+            throw new InvalidIdTokenException("Invalid id_token: azp does not match client_id", null);
+        }
+        if (expectedNonce != null && !expectedNonce.equals(claims.getClaim("nonce"))) {
+            throw new InvalidIdTokenException("Invalid id_token: nonce mismatch", null);
+        }
+        return claims;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Dừng thread refresh JWKS chạy nền
+        if (jwkSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    public static class InvalidIdTokenException extends Exception {
+
+        public InvalidIdTokenException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
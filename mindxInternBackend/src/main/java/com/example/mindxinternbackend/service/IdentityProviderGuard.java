@@ -0,0 +1,330 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.exception.IdentityProviderUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Lớp bảo vệ quanh mọi lời gọi tới identity provider (token, userinfo, PAR)
+ *
+ * - Bulkhead: tối đa maxConcurrentCalls lời gọi cùng lúc, lời gọi thứ n+1 chỉ chờ tối đa bulkheadWait
+ *   rồi bị từ chối, nên IdP chậm không kéo theo toàn bộ thread request
+ * - Circuit breaker: cửa sổ trượt windowSize lời gọi gần nhất; khi có ít nhất minimumCalls lời gọi và
+ *   tỉ lệ lỗi >= failureRateThreshold% thì mở mạch trong openDuration, mọi lời gọi bị từ chối ngay.
+ *   Hết openDuration chuyển sang half-open, cho halfOpenProbes lời gọi thử đi qua: tất cả thành công
+ *   thì đóng mạch, một lời gọi lỗi thì mở lại
+ * - Deadline: withDeadline() đặt ngân sách thời gian cho cả một thao tác (vd. callback = token + userinfo).
+ *   Mỗi lời gọi chỉ dùng phần thời gian còn lại (httpContext() cắt timeout của HTTP client theo đó),
+ *   hết ngân sách thì không gọi nữa
+ *
+ * Chỉ lỗi của IdP (không kết nối được, timeout, 5xx, 429) được tính là lỗi; 4xx như invalid_grant là
+ * lỗi của request nên vẫn tính là IdP còn sống. Bị từ chối thì ném IdentityProviderUnavailableException.
+ *
+ * Metrics: idp.calls{operation, outcome=success|failure|rejected}, idp.circuit.state (0 đóng, 1 mở,
+ * 2 half-open), idp.bulkhead.available
+ */
+@Slf4j
+public class IdentityProviderGuard {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitNanos;
+    private final long callTimeoutNanos;
+    private final long openDurationNanos;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+
+    // Trạng thái circuit breaker, chỉ đọc/ghi khi giữ monitor của guard.
+    // Lời gọi tới IdP ít (vài chục/giây lúc cao điểm) nên một monitor là đủ
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public IdentityProviderGuard(int maxConcurrentCalls, Duration bulkheadWait, Duration callTimeout,
+                                 int windowSize, int minimumCalls, int failureRateThreshold,
+                                 Duration openDuration, int halfOpenProbes,
+                                 MeterRegistry meterRegistry) {
+        this(maxConcurrentCalls, bulkheadWait, callTimeout, windowSize, minimumCalls, failureRateThreshold,
+            openDuration, halfOpenProbes, meterRegistry, System::nanoTime);
+    }
+
+    IdentityProviderGuard(int maxConcurrentCalls, Duration bulkheadWait, Duration callTimeout,
+                          int windowSize, int minimumCalls, int failureRateThreshold,
+                          Duration openDuration, int halfOpenProbes,
+                          MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.bulkheadWaitNanos = bulkheadWait.toNanos();
+        this.callTimeoutNanos = callTimeout.toNanos();
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+
+        Gauge.builder("idp.circuit.state", this, guard -> guard.state().ordinal())
+            .description("Trạng thái circuit breaker của identity provider: 0 đóng, 1 mở, 2 half-open")
+            .register(meterRegistry);
+        Gauge.builder("idp.bulkhead.available", bulkhead, Semaphore::availablePermits)
+            .description("Số lời gọi identity provider còn được phép chạy đồng thời")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Chạy work với ngân sách thời gian budget cho mọi lời gọi IdP bên trong.
+     * Nếu đã có deadline bao ngoài (sớm hơn) thì giữ deadline đó
+     */
+    public <T> T withDeadline(Duration budget, Supplier<T> work) {
+        Long outer = DEADLINE.get();
+        long deadline = nanoClock.getAsLong() + budget.toNanos();
+        if (outer != null && outer - deadline < 0) {
+            deadline = outer;
+        }
+        DEADLINE.set(deadline);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Thời gian còn lại của deadline trên thread hiện tại, null nếu không có deadline
+     */
+    public Duration remainingBudget() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return null;
+        }
+        return Duration.ofNanos(Math.max(0, deadline - nanoClock.getAsLong()));
+    }
+
+    /**
+     * HttpContext cho một request của HTTP client: timeout chờ pool/chờ response không vượt quá
+     * phần deadline còn lại, nên một thao tác gồm nhiều lời gọi không chạy quá ngân sách của nó
+     */
+    public HttpContext httpContext(Duration connectionRequestTimeout, Duration responseTimeout) {
+        HttpClientContext context = HttpClientContext.create();
+        Duration remaining = remainingBudget();
+        if (remaining != null) {
+            // Timeout 0 của HttpClient nghĩa là chờ vô hạn, nên giữ tối thiểu 1ms
+            if (remaining.toMillis() < 1) {
+                remaining = Duration.ofMillis(1);
+            }
+            context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(min(remaining, connectionRequestTimeout)))
+                .setResponseTimeout(Timeout.of(min(remaining, responseTimeout)))
+                .build());
+        }
+        return context;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    /**
+     * Có nên thử gọi IdP không: false khi mạch đang mở và chưa tới lúc thử lại.
+     * Dùng để chọn đường khác (vd. bỏ PAR) mà không tốn lời gọi nào
+     */
+    public boolean isCallPermitted() {
+        synchronized (this) {
+            return state != State.OPEN || nanoClock.getAsLong() - openedAt >= openDurationNanos;
+        }
+    }
+
+    /**
+     * Gọi IdP qua bulkhead + circuit breaker, trong deadline hiện tại (hoặc callTimeout nếu không có)
+     *
+     * @throws IdentityProviderUnavailableException khi bị từ chối, không gọi call
+     */
+    public <T> T call(String operation, Supplier<T> call) {
+        if (DEADLINE.get() == null) {
+            return withDeadline(Duration.ofNanos(callTimeoutNanos), () -> call(operation, call));
+        }
+
+        long remaining = DEADLINE.get() - nanoClock.getAsLong();
+        if (remaining <= 0) {
+            throw reject(operation, "deadline exceeded before calling identity provider", Duration.ZERO);
+        }
+        if (!isCallPermitted()) {
+            throw reject(operation, "circuit open", retryAfter());
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(Math.min(bulkheadWaitNanos, remaining), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(operation, "interrupted while waiting for bulkhead", Duration.ZERO);
+        }
+        if (!acquired) {
+            throw reject(operation, "too many concurrent calls", Duration.ofSeconds(1));
+        }
+
+        try {
+            if (!acquirePermission()) {
+                throw reject(operation, "circuit open", retryAfter());
+            }
+            try {
+                T result = call.get();
+                onSuccess(operation);
+                return result;
+            } catch (RuntimeException e) {
+                if (isIdentityProviderFailure(e)) {
+                    onFailure(operation);
+                } else {
+                    onSuccess(operation);
+                }
+                throw e;
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    synchronized State state() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean acquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+                log.info("Identity provider circuit half-open, probing");
+                // fall through
+            case HALF_OPEN:
+            default:
+                if (probesStarted >= halfOpenProbes) {
+                    return false;
+                }
+                probesStarted++;
+                return true;
+        }
+    }
+
+    private synchronized void onSuccess(String operation) {
+        count(operation, "success");
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                state = State.CLOSED;
+                resetWindow();
+                log.info("Identity provider circuit closed");
+            }
+            return;
+        }
+        record(false);
+    }
+
+    private synchronized void onFailure(String operation) {
+        count(operation, "failure");
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= minimumCalls
+            && windowFailures * 100 >= failureRateThreshold * windowCount) {
+            open();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        resetWindow();
+        log.warn("Identity provider circuit opened for {} ms", TimeUnit.NANOSECONDS.toMillis(openDurationNanos));
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private synchronized Duration retryAfter() {
+        return Duration.ofNanos(Math.max(0, openDurationNanos - (nanoClock.getAsLong() - openedAt)));
+    }
+
+    private IdentityProviderUnavailableException reject(String operation, String reason, Duration retryAfter) {
+        count(operation, "rejected");
+        return new IdentityProviderUnavailableException(
+            "Identity provider call " + operation + " rejected: " + reason, retryAfter);
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("idp.calls")
+            .description("Số lời gọi identity provider theo kết quả")
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    private static boolean isIdentityProviderFailure(RuntimeException e) {
+        if (e instanceof ResourceAccessException || e instanceof HttpServerErrorException) {
+            return true;
+        }
+        return e instanceof HttpStatusCodeException statusError
+            && statusError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.mindxinternbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * auth.login.transaction-store=memory: lượt đăng nhập nằm trong heap của pod.
+ * Khi chạy nhiều replica, /login-url và /callback của một lượt phải tới cùng pod (sticky session)
+ *
+ * - state/nonce 256 bit ngẫu nhiên từ RandomTokens
+ * - ConcurrentHashMap + hàng đợi FIFO không lock: TTL như nhau nên thứ tự tạo cũng là thứ tự hết hạn,
+ *   mỗi lần begin() dọn các lượt ở đầu hàng đợi đã hết hạn hoặc vượt trần maxTransactions
+ * - consume() xóa state khỏi map một cách nguyên tử: mỗi state chỉ dùng được đúng một lần
+ */
+public class InMemoryLoginTransactionStore implements LoginTransactionStore {
+
+    private record Pending(String state, Transaction transaction) {
+    }
+
+    private final ConcurrentHashMap<String, Transaction> transactions = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pending> byAge = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxTransactions;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final Counter started;
+    private final Counter consumed;
+    private final Counter rejected;
+    private final Counter evicted;
+
+    public InMemoryLoginTransactionStore(int maxTransactions, Duration ttl, Clock clock,
+                                         MeterRegistry meterRegistry) {
+        this.maxTransactions = maxTransactions;
+        this.ttl = ttl;
+        this.clock = clock;
+
+        Gauge.builder("auth.login.transactions.pending", transactions, ConcurrentHashMap::size)
+            .register(meterRegistry);
+        this.started = Counter.builder("auth.login.transactions").tag("outcome", "started").register(meterRegistry);
+        this.consumed = Counter.builder("auth.login.transactions").tag("outcome", "consumed").register(meterRegistry);
+        this.rejected = Counter.builder("auth.login.transactions").tag("outcome", "rejected").register(meterRegistry);
+        this.evicted = Counter.builder("auth.login.transactions").tag("outcome", "evicted").register(meterRegistry);
+    }
+
+    @Override
+    public Transaction begin(HttpServletRequest request, HttpServletResponse response,
+                             String redirectUri, String state, String nonce) {
+        return begin(redirectUri, state, nonce);
+    }
+
+    @Override
+    public Transaction consume(HttpServletRequest request, HttpServletResponse response, String state) {
+        return consume(state);
+    }
+
+    /**
+     * Lượt đăng nhập không gắn cookie nào: dùng session id mà request gửi lên (nếu có)
+     */
+    @Override
+    public String browserBinding(HttpServletRequest request, String state) {
+        return request.getRequestedSessionId();
+    }
+
+    /**
+     * @see LoginTransactionStore#begin
+     */
+    public Transaction begin(String redirectUri, String state, String nonce) {
+        evictStale();
+
+        String key = state == null || state.isEmpty() ? RandomTokens.randomToken() : state;
+        Transaction transaction = new Transaction(key, nonce != null ? nonce : RandomTokens.randomToken(),
+            redirectUri, clock.millis() + ttl.toMillis());
+        if (transactions.putIfAbsent(key, transaction) != null) {
+            return null;
+        }
+        byAge.add(new Pending(key, transaction));
+        queued.incrementAndGet();
+        started.increment();
+        return transaction;
+    }
+
+    /**
+     * Lấy và xóa lượt đăng nhập của state (chỉ thành công một lần cho mỗi state)
+     *
+     * @return null nếu state không tồn tại, đã dùng hoặc đã hết hạn
+     */
+    public Transaction consume(String state) {
+        Transaction transaction = state == null ? null : transactions.remove(state);
+        if (transaction == null || clock.millis() >= transaction.expiresAtMillis()) {
+            rejected.increment();
+            return null;
+        }
+        consumed.increment();
+        return transaction;
+    }
+
+    private void evictStale() {
+        long now = clock.millis();
+        Pending head;
+        while ((head = byAge.peek()) != null
+            && (head.transaction().expiresAtMillis() <= now || queued.get() >= maxTransactions)) {
+            if (!byAge.remove(head)) {
+                // Thread khác vừa lấy mất phần tử đầu
+                continue;
+            }
+            queued.decrementAndGet();
+            // remove(key, value): không xóa nhầm lượt mới hơn dùng lại cùng state
+            if (transactions.remove(head.state(), head.transaction())) {
+                evicted.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mindxinternbackend.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Nơi giữ các lượt đăng nhập đang dở (state -> nonce + redirectUri) từ lúc tạo login URL tới callback
+ * Chọn implementation bằng auth.login.transaction-store (xem AuthSessionConfig)
+ */
+public interface LoginTransactionStore {
+
+    /**
+     * Một lượt đăng nhập đang chờ callback
+     */
+    record Transaction(String state, String nonce, String redirectUri, long expiresAtMillis) {
+    }
+
+    /**
+     * Bắt đầu một lượt đăng nhập
+     *
+     * @param state - state do client gửi lên, null/rỗng thì server tự sinh
+     * @param nonce - nonce đã gửi sẵn cho IdP (vd. request_uri PAR đẩy trước), null thì server tự sinh
+     * @return null nếu state client gửi lên đang được một lượt khác dùng
+     */
+    Transaction begin(HttpServletRequest request, HttpServletResponse response,
+                      String redirectUri, String state, String nonce);
+
+    /**
+     * Lấy và kết thúc lượt đăng nhập của state
+     *
+     * @return null nếu state không tồn tại, đã dùng, đã hết hạn hoặc không thuộc trình duyệt này
+     */
+    Transaction consume(HttpServletRequest request, HttpServletResponse response, String state);
+
+    /**
+     * Giá trị gắn lượt đăng nhập của state với trình duyệt đã bắt đầu nó (vd. cookie của lượt đăng nhập),
+     * người chỉ biết code/state (qua referer, log) không có được. Không kiểm tra hay kết thúc lượt
+     *
+     * @return null nếu request không mang giá trị nào như vậy
+     */
+    String browserBinding(HttpServletRequest request, String state);
+}
@@ -2,6 +2,12 @@ package com.example.mindxinternbackend.service;
 
 import com.example.mindxinternbackend.config.OpenIDEndpoints;
 import com.example.mindxinternbackend.dto.AuthResponse;
+import com.example.mindxinternbackend.exception.IdentityProviderUnavailableException;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,8 +18,12 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -26,13 +36,99 @@ public class OAuth2TokenExchangeService {
     @Value("${OPENID_CLIENT_SECRET}")
     private String clientSecret;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // RestTemplate dùng chung có pool kết nối + timeout, xem IdentityProviderHttpConfig
+    private final RestTemplate restTemplate;
+
+    private final IdTokenVerifier idTokenVerifier;
+
+    private final IdentityProviderGuard identityProviderGuard;
+
+    private final LoginTransactionStore loginTransactionStore;
+
+    private final MeterRegistry meterRegistry;
+
+    // Ngân sách cho cả callback: token + (nếu cần) userinfo
+    @Value("${idp.resilience.callback-deadline:PT8S}")
+    private Duration callbackDeadline;
+
+    @Value("${auth.login.callback-result-ttl:PT10S}")
+    private Duration callbackResultTtl;
+
+    @Value("${auth.login.max-cached-callbacks:10000}")
+    private int maxCachedCallbacks;
+
+    // Callback trùng từ cùng trình duyệt (React strict mode, retry của frontend) dùng chung một lượt exchange
+    private SingleFlight<String, CallbackResult> callbacks;
+
+    @PostConstruct
+    void init() {
+        callbacks = new SingleFlight<>(callbackResultTtl, maxCachedCallbacks, Clock.systemUTC(), meterRegistry,
+            "auth.callback.exchanges");
+    }
+
+    /**
+     * Hoàn tất đăng nhập từ callback: kiểm tra state (dùng một lần), redirect URI rồi exchange code
+     *
+     * Các request trùng code + state + redirectUri từ cùng trình duyệt (cùng LoginTransactionStore.browserBinding,
+     * vd. cùng cookie lượt đăng nhập) tới trong lúc đang exchange hoặc trong auth.login.callback-result-ttl sau đó
+     * không gọi lại IdP mà nhận đúng kết quả của lượt đầu. Request không mang giá trị đó (người chỉ biết
+     * code/state) không bao giờ nhập vào lượt của người khác mà phải tự qua LoginTransactionStore
+     *
+     * @param redirectUri - redirect URI frontend gửi lên, null/rỗng thì dùng redirect URI lúc tạo login URL
+     * @param httpRequest - request callback, LoginTransactionStore đọc lượt đăng nhập từ đây (vd. cookie)
+     * @throws IdentityProviderUnavailableException khi IdP đang lỗi/quá tải hoặc hết deadline (trả 503 ngay)
+     */
+    public CallbackResult completeLogin(String code, String state, String redirectUri,
+                                        HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        String binding = state == null ? null : loginTransactionStore.browserBinding(httpRequest, state);
+        if (binding == null) {
+            return completeLoginOnce(code, state, redirectUri, httpRequest, httpResponse);
+        }
+        String key = binding + '\n' + code + '\n' + state + '\n' + (redirectUri != null ? redirectUri : "");
+        return callbacks.execute(key,
+            () -> completeLoginOnce(code, state, redirectUri, httpRequest, httpResponse));
+    }
+
+    private CallbackResult completeLoginOnce(String code, String state, String redirectUri,
+                                             HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        // State phải do /login-url cấp cho trình duyệt này, chưa dùng và chưa hết hạn
+        LoginTransactionStore.Transaction transaction =
+            loginTransactionStore.consume(httpRequest, httpResponse, state);
+        if (transaction == null) {
+            log.warn("Callback rejected: unknown, expired or reused state");
+            return CallbackResult.failed(HttpStatus.UNAUTHORIZED, "Invalid or expired login state");
+        }
+
+        // redirect_uri gửi lên IdP phải trùng với lúc tạo login URL
+        if (redirectUri != null && !redirectUri.isEmpty() && !redirectUri.equals(transaction.redirectUri())) {
+            log.warn("Callback rejected: redirectUri does not match the login request");
+            return CallbackResult.failed(HttpStatus.BAD_REQUEST, "Redirect URI does not match the login request");
+        }
+
+        // id_token phải chứa đúng nonce của lượt đăng nhập này
+        TokenExchangeResult result = exchangeCodeForUserInfo(code, transaction.redirectUri(), transaction.nonce());
+        AuthResponse response = result.getAuthResponse();
+        HttpStatus status = response.isSuccess() && response.getUser() != null
+            ? HttpStatus.OK : HttpStatus.UNAUTHORIZED;
+        return new CallbackResult(status, response, result.getIdToken());
+    }
 
     /**
      * Exchange authorization code for access token và lấy user info
      * Trả về cả id_token để dùng cho logout
+     *
+     * User info được lấy từ claims của id_token sau khi kiểm tra chữ ký/claims bằng JWKS đã cache,
+     * chỉ gọi userinfo endpoint khi id_token thiếu email/name (hoặc IdP không trả id_token)
+     *
+     * @param expectedNonce - nonce đã gửi trong authorization request, null nếu không biết
+     * @throws IdentityProviderUnavailableException khi IdP đang lỗi/quá tải hoặc hết deadline (trả 503 ngay)
      */
-    public TokenExchangeResult exchangeCodeForUserInfo(String code, String redirectUri) {
+    public TokenExchangeResult exchangeCodeForUserInfo(String code, String redirectUri, String expectedNonce) {
+        return identityProviderGuard.withDeadline(callbackDeadline,
+            () -> exchangeWithinDeadline(code, redirectUri, expectedNonce));
+    }
+
+    private TokenExchangeResult exchangeWithinDeadline(String code, String redirectUri, String expectedNonce) {
         try {
             // 1. Exchange code for token
             TokenResponse tokenResponse = exchangeCodeForToken(code, redirectUri);
@@ -47,20 +143,47 @@ public class OAuth2TokenExchangeService {
                 );
             }
 
-            // 2. Get user info using access token
-            Map<String, Object> userInfo = getUserInfo(tokenResponse.getAccessToken());
-            if (userInfo == null) {
-                return new TokenExchangeResult(
-                    new AuthResponse(
-                        false,
-                        "Failed to get user info",
+            // 2. Verify id_token locally, get user info from its claims
+            Map<String, Object> userInfo = null;
+            if (tokenResponse.getIdToken() != null) {
+                JWTClaimsSet claims = idTokenVerifier.verify(tokenResponse.getIdToken(), expectedNonce);
+                userInfo = claims.getClaims();
+            }
+
+            // 3. Fall back to userinfo endpoint when claims are missing
+            if (userInfo == null || isMissingProfileClaims(userInfo)) {
+                Map<String, Object> fetched = getUserInfo(tokenResponse.getAccessToken());
+                if (fetched == null) {
+                    return new TokenExchangeResult(
+                        new AuthResponse(
+                            false,
+                            "Failed to get user info",
+                            null
+                        ),
                         null
-                    ),
-                    null
-                );
+                    );
+                }
+                if (userInfo != null && !Objects.equals(userInfo.get("sub"), fetched.get("sub"))) {
+                    // OIDC Core 5.3.2: sub của userinfo phải trùng sub của id_token
+                    log.error("Userinfo sub does not match id_token sub");
+                    return new TokenExchangeResult(
+                        new AuthResponse(
+                            false,
+                            "Failed to get user info",
+                            null
+                        ),
+                        null
+                    );
+                }
+                if (userInfo != null) {
+                    Map<String, Object> merged = new HashMap<>(userInfo);
+                    merged.putAll(fetched);
+                    fetched = merged;
+                }
+                userInfo = fetched;
             }
 
-            // 3. Extract user information
+            // 4. Extract user information
             String sub = (String) userInfo.getOrDefault("sub", "");
             String email = (String) userInfo.getOrDefault("email", "");
             String name = (String) userInfo.getOrDefault("name", 
@@ -85,6 +208,18 @@ public class OAuth2TokenExchangeService {
                 tokenResponse.getIdToken()
             );
 
+        } catch (IdentityProviderUnavailableException e) {
+            throw e;
+        } catch (IdTokenVerifier.InvalidIdTokenException e) {
+            log.warn("Rejected id_token: {}", e.getMessage());
+            return new TokenExchangeResult(
+                new AuthResponse(
+                    false,
+                    "Authentication failed: invalid id_token",
+                    null
+                ),
+                null
+            );
         } catch (Exception e) {
             log.error("Error exchanging code for user info: ", e);
             return new TokenExchangeResult(
@@ -97,6 +232,11 @@ public class OAuth2TokenExchangeService {
             );
         }
     }
+
+    private static boolean isMissingProfileClaims(Map<String, Object> claims) {
+        return claims.get("email") == null
+            || (claims.get("name") == null && claims.get("preferred_username") == null);
+    }
     
     /**
      * Inner class để trả về cả AuthResponse và id_token
@@ -108,6 +248,20 @@ public class OAuth2TokenExchangeService {
         private final String idToken;
     }
     
+    /**
+     * Kết quả của callback: HTTP status trả cho frontend, AuthResponse và id_token (khi thành công)
+     */
+    public record CallbackResult(HttpStatus status, AuthResponse authResponse, String idToken) {
+
+        static CallbackResult failed(HttpStatus status, String message) {
+            return new CallbackResult(status, new AuthResponse(false, message, null), null);
+        }
+
+        public boolean isSuccess() {
+            return status == HttpStatus.OK;
+        }
+    }
+
     /**
      * Inner class để lưu token response
      */
@@ -138,12 +292,12 @@ public class OAuth2TokenExchangeService {
 
             HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
 
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = identityProviderGuard.call("token", () -> restTemplate.exchange(
                 OpenIDEndpoints.TOKEN_ENDPOINT,
                 HttpMethod.POST,
                 request,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> tokenResponse = response.getBody();
@@ -156,6 +310,8 @@ public class OAuth2TokenExchangeService {
                 response.getStatusCode(), response.getBody());
             return null;
 
+        } catch (IdentityProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error exchanging code for token: ", e);
             return null;
@@ -172,12 +328,12 @@ public class OAuth2TokenExchangeService {
 
             HttpEntity<String> request = new HttpEntity<>(headers);
 
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = identityProviderGuard.call("userinfo", () -> restTemplate.exchange(
                 OpenIDEndpoints.USER_INFO_ENDPOINT,
                 HttpMethod.GET,
                 request,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 return response.getBody();
@@ -187,6 +343,8 @@ public class OAuth2TokenExchangeService {
                 response.getStatusCode(), response.getBody());
             return null;
 
+        } catch (IdentityProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error getting user info: ", e);
             return null;
@@ -1,6 +1,12 @@
 package com.example.mindxinternbackend.service;
 
 import com.example.mindxinternbackend.config.OpenIDEndpoints;
+import com.example.mindxinternbackend.exception.IdentityProviderUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,31 +17,223 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service để sử dụng Pushed Authorization Request (PAR) endpoint
  * Nếu authorization endpoint trực tiếp không hoạt động, có thể thử PAR
+ *
+ * Pool request_uri đẩy trước (idp.par.pool.enabled=true): một thread nền push sẵn các authorization
+ * request với state/nonce do server sinh cho các redirect URI thường dùng, để /login-url?usePAR=true
+ * chỉ cần lấy một request_uri có sẵn thay vì chờ một lượt POST tới IdP
+ * - Mỗi request_uri chỉ dùng một lần và hết hạn sau expires_in của IdP; entry bị bỏ khi còn ít hơn
+ *   expiry-margin để user kịp redirect tới IdP
+ * - Kích thước pool theo nhu cầu: tốc độ lấy (EWMA) nhân lookahead, kẹp trong [min-size, max-size]
+ * - Không push nền khi circuit breaker của IdP đang mở, dừng lượt refill ở lần push lỗi đầu tiên
+ * - Pool rỗng (hoặc client tự gửi state/prompt) thì caller push đồng bộ như cũ
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PARService {
 
+    private static final double RATE_SMOOTHING = 0.3;
+    private static final long DEFAULT_EXPIRES_IN_SECONDS = 60;
+
     @Value("${OPENID_CLIENT_ID}")
     private String clientId;
 
     @Value("${OPENID_CLIENT_SECRET}")
     private String clientSecret;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // RestTemplate dùng chung có pool kết nối + timeout, xem IdentityProviderHttpConfig
+    private final RestTemplate restTemplate;
+
+    private final IdentityProviderGuard identityProviderGuard;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${idp.resilience.par-deadline:PT2S}")
+    private Duration parDeadline;
+
+    @Value("${idp.par.pool.enabled:false}")
+    private boolean poolEnabled;
+
+    @Value("${idp.par.pool.redirect-uris:https://onboarding.mindx.edu.vn/auth/callback}")
+    private List<String> poolRedirectUris;
+
+    @Value("${idp.par.pool.min-size:2}")
+    private int poolMinSize;
+
+    @Value("${idp.par.pool.max-size:50}")
+    private int poolMaxSize;
+
+    @Value("${idp.par.pool.lookahead:PT5S}")
+    private Duration poolLookahead;
+
+    @Value("${idp.par.pool.refill-interval:PT1S}")
+    private Duration poolRefillInterval;
+
+    @Value("${idp.par.pool.max-pushes-per-refill:10}")
+    private int maxPushesPerRefill;
+
+    @Value("${idp.par.pool.expiry-margin:PT15S}")
+    private Duration poolExpiryMargin;
+
+    /**
+     * request_uri đã push sẵn cùng state/nonce đã gửi kèm
+     */
+    public record PushedRequest(String requestUri, String state, String nonce, long expiresAtMillis) {
+    }
+
+    /**
+     * Pool của một redirect URI
+     */
+    private static final class Pool {
+        private final ConcurrentLinkedDeque<PushedRequest> ready = new ConcurrentLinkedDeque<>();
+        private final LongAdder demand = new LongAdder();
+        // Số lượt lấy mỗi giây, EWMA qua các lượt refill (chỉ thread refill ghi)
+        private double rate;
+    }
+
+    private final Map<String, Pool> pools = new LinkedHashMap<>();
+    private ScheduledExecutorService refiller;
+    private Counter poolHits;
+    private Counter poolMisses;
+    private Counter poolExpired;
+
+    @PostConstruct
+    void startPool() {
+        if (!poolEnabled) {
+            return;
+        }
+        for (String redirectUri : poolRedirectUris) {
+            Pool pool = new Pool();
+            pools.put(redirectUri, pool);
+            Gauge.builder("idp.par.pool.size", pool.ready, ConcurrentLinkedDeque::size)
+                .tag("redirect_uri", redirectUri)
+                .register(meterRegistry);
+        }
+        poolHits = Counter.builder("idp.par.pool.requests").tag("outcome", "hit").register(meterRegistry);
+        poolMisses = Counter.builder("idp.par.pool.requests").tag("outcome", "miss").register(meterRegistry);
+        poolExpired = Counter.builder("idp.par.pool.expired").register(meterRegistry);
+
+        refiller = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "par-pool-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = poolRefillInterval.toMillis();
+        refiller.scheduleWithFixedDelay(() -> {
+            try {
+                refillPools();
+            } catch (Exception e) {
+                log.error("PAR pool refill failed: ", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        log.info("PAR request_uri pool enabled for {}", poolRedirectUris);
+    }
+
+    @PreDestroy
+    void stopPool() {
+        if (refiller != null) {
+            refiller.shutdownNow();
+        }
+    }
+
+    /**
+     * Lấy một request_uri đã push sẵn cho redirectUri (không gọi mạng)
+     *
+     * @return null nếu pool tắt, redirectUri không nằm trong idp.par.pool.redirect-uris hoặc pool đang rỗng
+     */
+    public PushedRequest takePooled(String redirectUri) {
+        Pool pool = pools.get(redirectUri);
+        if (pool == null) {
+            return null;
+        }
+        pool.demand.increment();
+
+        long usableUntil = System.currentTimeMillis() + poolExpiryMargin.toMillis();
+        PushedRequest pushed;
+        while ((pushed = pool.ready.pollFirst()) != null) {
+            if (pushed.expiresAtMillis() > usableUntil) {
+                poolHits.increment();
+                return pushed;
+            }
+            poolExpired.increment();
+        }
+        poolMisses.increment();
+        return null;
+    }
+
+    void refillPools() {
+        double intervalSeconds = poolRefillInterval.toMillis() / 1000.0;
+        int pushBudget = maxPushesPerRefill;
+
+        for (Map.Entry<String, Pool> entry : pools.entrySet()) {
+            Pool pool = entry.getValue();
+            long usableUntil = System.currentTimeMillis() + poolExpiryMargin.toMillis();
+            // Entry cũ nằm ở đầu deque, bỏ các entry sắp hết hạn trước khi bị lấy ra
+            PushedRequest oldest;
+            while ((oldest = pool.ready.peekFirst()) != null && oldest.expiresAtMillis() <= usableUntil) {
+                if (pool.ready.remove(oldest)) {
+                    poolExpired.increment();
+                }
+            }
+
+            pool.rate += RATE_SMOOTHING * (pool.demand.sumThenReset() / intervalSeconds - pool.rate);
+            long wanted = (long) Math.ceil(pool.rate * poolLookahead.toMillis() / 1000.0);
+            int target = (int) Math.max(poolMinSize, Math.min(poolMaxSize, wanted));
+
+            for (int missing = target - pool.ready.size(); missing > 0 && pushBudget > 0; missing--, pushBudget--) {
+                if (!identityProviderGuard.isCallPermitted()) {
+                    return;
+                }
+                String state = RandomTokens.randomToken();
+                String nonce = RandomTokens.randomToken();
+                Map<String, Object> parResponse = identityProviderGuard.withDeadline(parDeadline,
+                    () -> pushWithinDeadline(entry.getKey(), state, nonce, null));
+                if (parResponse == null) {
+                    return;
+                }
+                long expiresIn = parResponse.get("expires_in") instanceof Number number
+                    ? number.longValue() : DEFAULT_EXPIRES_IN_SECONDS;
+                pool.ready.addLast(new PushedRequest((String) parResponse.get("request_uri"), state, nonce,
+                    System.currentTimeMillis() + expiresIn * 1000));
+            }
+        }
+    }
 
     /**
      * Push authorization request và lấy request_uri
      * Sau đó frontend sẽ redirect đến authorization endpoint với request_uri
+     *
+     * Trả về null (caller dùng authorization URL thường) khi PAR lỗi, hoặc ngay lập tức không gọi mạng
+     * khi circuit breaker của IdP đang mở / bulkhead đầy
      */
     public String pushAuthorizationRequest(String redirectUri, String state, String nonce, String prompt) {
+        if (!identityProviderGuard.isCallPermitted()) {
+            log.debug("Identity provider circuit open, skipping PAR");
+            return null;
+        }
+        Map<String, Object> parResponse = identityProviderGuard.withDeadline(parDeadline,
+            () -> pushWithinDeadline(redirectUri, state, nonce, prompt));
+        return parResponse != null ? (String) parResponse.get("request_uri") : null;
+    }
+
+    /**
+     * @return body của PAR response (có request_uri, expires_in), null nếu lỗi
+     */
+    private Map<String, Object> pushWithinDeadline(String redirectUri, String state, String nonce, String prompt) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -60,17 +258,17 @@ public class PARService {
 
             HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
 
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = identityProviderGuard.call("par", () -> restTemplate.exchange(
                 OpenIDEndpoints.PUSHED_AUTHORIZATION_REQUEST_ENDPOINT,
                 HttpMethod.POST,
                 request,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK || response.getStatusCode() == HttpStatus.CREATED) {
                 Map<String, Object> parResponse = response.getBody();
-                if (parResponse != null && parResponse.containsKey("request_uri")) {
-                    return (String) parResponse.get("request_uri");
+                if (parResponse != null && parResponse.get("request_uri") instanceof String) {
+                    return parResponse;
                 }
             }
 
@@ -78,6 +276,9 @@ public class PARService {
                 response.getStatusCode(), response.getBody());
             return null;
 
+        } catch (IdentityProviderUnavailableException e) {
+            log.warn("Skipping PAR: {}", e.getMessage());
+            return null;
         } catch (Exception e) {
             log.error("Error pushing authorization request: ", e);
             return null;
@@ -0,0 +1,47 @@
+package com.example.mindxinternbackend.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Byte ngẫu nhiên an toàn cho state/nonce đăng nhập và IV của cookie mã hóa
+ *
+ * Pool SecureRandom (chọn ngẫu nhiên theo ThreadLocalRandom) thay vì UUID.randomUUID() dùng chung một
+ * SecureRandom có lock. Mỗi slot là một instance DRBG riêng: new SecureRandom() mặc định là NativePRNG
+ * trên Linux, mọi instance dùng chung một lock toàn cục nên pool không giảm tranh chấp.
+ * Không dùng ThreadLocal<SecureRandom> vì ở chế độ virtual thread mỗi request là một thread mới
+ */
+public final class RandomTokens {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom[] RANDOMS = new SecureRandom[
+        Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2)];
+
+    static {
+        try {
+            for (int i = 0; i < RANDOMS.length; i++) {
+                RANDOMS[i] = SecureRandom.getInstance("DRBG");
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("DRBG SecureRandom is not available", e);
+        }
+    }
+
+    private RandomTokens() {
+    }
+
+    /**
+     * Chuỗi ngẫu nhiên 256 bit, base64url
+     */
+    public static String randomToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static void nextBytes(byte[] bytes) {
+        RANDOMS[ThreadLocalRandom.current().nextInt(RANDOMS.length)].nextBytes(bytes);
+    }
+}
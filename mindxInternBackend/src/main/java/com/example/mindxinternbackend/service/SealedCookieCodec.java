@@ -0,0 +1,100 @@
+package com.example.mindxinternbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mã hóa + xác thực giá trị cookie bằng AES-GCM với bộ key auth.session.cookie.keys
+ *
+ * Định dạng: v1.{kid}.{base64url(iv 12 byte || ciphertext || tag)}
+ * - Sửa bất kỳ byte nào đều bị từ chối (tag 128 bit). "v1.{kid}" là associated data nên không đổi được
+ *   version/kid mà không làm hỏng tag
+ * - purpose cũng nằm trong associated data: cookie mã hóa cho mục đích này (vd. lượt đăng nhập) không
+ *   mở được ở chỗ khác (vd. phiên), dù cùng bộ key. purpose rỗng giữ nguyên định dạng cookie phiên cũ
+ * - Xoay key: key đầu tiên trong danh sách dùng để mã hóa, mọi key trong danh sách đều giải mã được
+ */
+@Slf4j
+final class SealedCookieCodec {
+
+    private static final String VERSION = "v1";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final Map<String, SecretKey> keys;
+    private final String activeKeyId;
+    private final String purpose;
+
+    /**
+     * Giá trị đã giải mã
+     *
+     * @param retiredKey - true nếu cookie được mã hóa bằng key không còn là key đang dùng
+     */
+    record Opened(byte[] plaintext, boolean retiredKey) {
+    }
+
+    /**
+     * @param keys - kid -> key AES (16/24/32 byte), key đầu tiên theo thứ tự duyệt là key đang dùng để mã hóa
+     */
+    SealedCookieCodec(Map<String, SecretKey> keys, String purpose) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one session cookie key is required");
+        }
+        this.keys = new LinkedHashMap<>(keys);
+        this.activeKeyId = keys.keySet().iterator().next();
+        this.purpose = purpose;
+    }
+
+    String seal(byte[] plaintext) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            RandomTokens.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(activeKeyId), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData(activeKeyId));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+
+            byte[] sealed = ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array();
+            return VERSION + "." + activeKeyId + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sealed);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt cookie", e);
+        }
+    }
+
+    /**
+     * @return null nếu giá trị bị sửa, dùng key đã bị gỡ hoặc không đúng định dạng
+     */
+    Opened open(String value) {
+        String[] parts = value.split("\\.", 3);
+        if (parts.length != 3 || !VERSION.equals(parts[0]) || !keys.containsKey(parts[1])) {
+            return null;
+        }
+        try {
+            byte[] sealed = Base64.getUrlDecoder().decode(parts[2]);
+            if (sealed.length <= IV_BYTES) {
+                return null;
+            }
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, keys.get(parts[1]), new GCMParameterSpec(TAG_BITS, sealed, 0, IV_BYTES));
+            cipher.updateAAD(associatedData(parts[1]));
+            byte[] plaintext = cipher.doFinal(sealed, IV_BYTES, sealed.length - IV_BYTES);
+            return new Opened(plaintext, !activeKeyId.equals(parts[1]));
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            log.debug("Rejected sealed cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] associatedData(String keyId) {
+        String prefix = VERSION + "." + keyId;
+        return (purpose.isEmpty() ? prefix : prefix + "." + purpose).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.mindxinternbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Gộp các lời gọi trùng key: lời gọi đầu tiên (leader) chạy work, các lời gọi cùng key tới trong lúc
+ * leader đang chạy hoặc trong resultTtl sau khi xong nhận lại đúng kết quả đó (kể cả exception)
+ *
+ * Kết quả đã xong được dọn theo thứ tự hoàn thành (hàng đợi FIFO, TTL như nhau) mỗi lần execute(),
+ * và không giữ quá maxEntries kết quả. Không cần thread dọn riêng
+ *
+ * Ai đưa ra được key là nhận được kết quả: key phải chứa đủ thông tin để chỉ đúng người gọi ban đầu
+ * tạo lại được (vd. giá trị gắn với trình duyệt, không chỉ code/state có thể bị lộ qua URL)
+ */
+public class SingleFlight<K, V> {
+
+    private record Done<K, V>(K key, CompletableFuture<V> result, long expiresAtMillis) {
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Done<K, V>> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final Duration resultTtl;
+    private final int maxEntries;
+    private final Clock clock;
+
+    private final Counter executed;
+    private final Counter shared;
+
+    /**
+     * @param metricName - counter {metricName}{outcome=executed|shared}
+     */
+    public SingleFlight(Duration resultTtl, int maxEntries, Clock clock, MeterRegistry meterRegistry,
+                        String metricName) {
+        this.resultTtl = resultTtl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.executed = Counter.builder(metricName).tag("outcome", "executed").register(meterRegistry);
+        this.shared = Counter.builder(metricName).tag("outcome", "shared").register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> work) {
+        evictExpired();
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, mine);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        try {
+            V value = work.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            completed.add(new Done<>(key, mine, clock.millis() + resultTtl.toMillis()));
+            completedCount.incrementAndGet();
+        }
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Ném lại đúng exception của leader để caller xử lý như khi tự chạy
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void evictExpired() {
+        long now = clock.millis();
+        Done<K, V> head;
+        while ((head = completed.peek()) != null
+            && (head.expiresAtMillis() <= now || completedCount.get() > maxEntries)) {
+            if (!completed.remove(head)) {
+                continue;
+            }
+            completedCount.decrementAndGet();
+            flights.remove(head.key(), head.result());
+        }
+    }
+}
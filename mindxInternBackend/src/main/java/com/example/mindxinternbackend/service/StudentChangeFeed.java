@@ -0,0 +1,295 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dao.StudentChangeListener;
+import com.example.mindxinternbackend.dao.StudentChangeListeners;
+import com.example.mindxinternbackend.dto.StudentChangeEvent;
+import com.example.mindxinternbackend.entity.Student;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Change feed SSE cho GET /api/students/changes
+ *
+ * - Writer (qua ChangePublishingStudentDao) chỉ lấy sequence bằng AtomicLong, ghi event vào slot của nó
+ *   trong ring buffer và báo cho dispatcher: không lock, không I/O, không phụ thuộc số client đang nghe
+ * - Một thread dispatcher duy nhất (các lần báo dồn lại thành một) đánh thức sender của client nào còn
+ *   event chưa gửi. Mỗi client giữ con trỏ sequence đã gửi và sender tự kéo event tiếp theo từ ring buffer,
+ *   nên không có hàng đợi riêng cho từng client. Client chậm chỉ làm chậm chính nó
+ * - Client tụt lại quá clientBuffer event (hoặc slot cần đọc đã bị ghi đè): đóng kết nối. EventSource tự
+ *   kết nối lại với Last-Event-ID = event cuối đã nhận và được replay phần còn thiếu từ ring buffer
+ * - Last-Event-ID quá cũ (đã ra khỏi ring buffer) hoặc không hợp lệ: client nhận event "reset",
+ *   nghĩa là phải tải lại danh sách rồi tiếp tục nghe
+ *
+ * Writer song song có thể ghi slot không theo thứ tự sequence: sender chỉ gửi event khi slot đúng bằng
+ * sequence kế tiếp, nên không bao giờ nhảy qua một event chưa ghi xong; writer đó báo dispatcher khi ghi xong.
+ *
+ * Sequence bắt đầu từ thời điểm khởi động (epoch ms * 1000), nên Last-Event-ID của process trước
+ * luôn nhỏ hơn event cũ nhất sau restart và client nhận reset thay vì bị replay nhầm.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StudentChangeFeed implements StudentChangeListener {
+
+    private final StudentChangeListeners changeListeners;
+
+    @Value("${student.changes.history-size:1024}")
+    private int historySize;
+
+    @Value("${student.changes.client-buffer:256}")
+    private int clientBuffer;
+
+    @Value("${student.changes.timeout:PT30M}")
+    private Duration timeout;
+
+    @Value("${student.changes.heartbeat-interval:PT15S}")
+    private Duration heartbeatInterval;
+
+    @Value("${spring.threads.virtual.enabled:true}")
+    private boolean virtualThreads;
+
+    private AtomicReferenceArray<StudentChangeEvent> history;
+    private final long startSequence = System.currentTimeMillis() * 1000;
+    private final AtomicLong lastSequence = new AtomicLong(startSequence);
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+
+    private ExecutorService senders;
+    private ExecutorService dispatcher;
+    private ScheduledExecutorService heartbeats;
+
+    @PostConstruct
+    void start() {
+        history = new AtomicReferenceArray<>(historySize);
+
+        if (virtualThreads) {
+            // Sender chủ yếu chờ socket: mỗi client một virtual thread, client chậm không giữ platform thread nào
+            senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("student-sse-", 1).factory());
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            senders = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "student-sse-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        dispatcher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "student-sse-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "student-sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Comment định kỳ giữ kết nối qua proxy và phát hiện client đã ngắt
+        long period = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(() -> subscribers.forEach(Subscriber::heartbeat),
+            period, period, TimeUnit.MILLISECONDS);
+
+        changeListeners.register(this);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdown();
+    }
+
+    @Override
+    public void onChange(StudentChangeEvent.Type type, Integer id, Student student) {
+        long sequence = lastSequence.incrementAndGet();
+        history.set(slotOf(sequence), new StudentChangeEvent(sequence, type, id, student));
+        // Các lần báo trong lúc dispatcher chưa chạy dồn lại thành một lượt
+        if (dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        // Hạ cờ trước khi duyệt: event ghi sau thời điểm này sẽ đặt lịch một lượt dispatch mới
+        dispatchPending.set(false);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.schedule();
+        }
+    }
+
+    /**
+     * @param lastEventId - sequence cuối cùng client đã nhận, null nếu là kết nối mới
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = newEmitter();
+        long current = lastSequence.get();
+        Subscriber subscriber = new Subscriber(emitter, current);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        if (lastEventId != null && lastEventId != current) {
+            long oldest = Math.max(current - historySize + 1, startSequence + 1);
+            long missed = current - lastEventId;
+            if (lastEventId > current || lastEventId + 1 < oldest || missed > clientBuffer) {
+                subscriber.reset(current);
+            } else {
+                // Replay: sender kéo tiếp từ ring buffer ngay sau event cuối client đã nhận
+                subscriber.resumeAfter(lastEventId);
+            }
+        }
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private int slotOf(long sequence) {
+        return (int) Math.floorMod(sequence, (long) historySize);
+    }
+
+    /**
+     * Con trỏ và trạng thái gửi của một client. Các field chỉ được đọc/ghi khi giữ monitor của object
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        /** sequence của event cuối cùng đã gửi (hoặc bỏ qua) cho client này */
+        private long cursor;
+        private boolean resetPending;
+        private boolean heartbeatPending;
+        private boolean scheduled;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        synchronized void resumeAfter(long sequence) {
+            cursor = sequence;
+        }
+
+        /**
+         * @param sequence - sequence hiện tại của feed; client tải lại danh sách rồi resume từ đây
+         */
+        synchronized void reset(long sequence) {
+            resetPending = true;
+            cursor = sequence;
+        }
+
+        synchronized void heartbeat() {
+            heartbeatPending = true;
+            schedule();
+        }
+
+        synchronized void schedule() {
+            if (closed || scheduled) {
+                return;
+            }
+            if (cursor == lastSequence.get() && !resetPending && !heartbeatPending) {
+                return;
+            }
+            scheduled = true;
+            senders.execute(this::drain);
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            subscribers.remove(this);
+        }
+
+        /**
+         * Chạy trên thread sender: gửi lần lượt cho tới khi hết event đã ghi xong, send() block khi socket đầy
+         * nhưng không giữ monitor, và writer không bao giờ chờ sender
+         */
+        private void drain() {
+            try {
+                while (true) {
+                    SseEmitter.SseEventBuilder message;
+                    synchronized (this) {
+                        if (closed) {
+                            return;
+                        }
+                        if (lastSequence.get() - cursor > clientBuffer) {
+                            overflow();
+                            return;
+                        }
+                        message = next();
+                        if (message == null) {
+                            scheduled = false;
+                            return;
+                        }
+                    }
+                    emitter.send(message);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client đã ngắt kết nối: container sẽ gọi onError/onCompletion, chỉ cần ngừng gửi
+                log.debug("Student change stream closed: {}", e.getMessage());
+                close();
+            }
+        }
+
+        private void overflow() {
+            closed = true;
+            subscribers.remove(this);
+            emitter.complete();
+        }
+
+        private SseEmitter.SseEventBuilder next() {
+            if (resetPending) {
+                resetPending = false;
+                return SseEmitter.event().name("reset").id(String.valueOf(cursor)).data("reset");
+            }
+            if (cursor < lastSequence.get()) {
+                StudentChangeEvent event = history.get(slotOf(cursor + 1));
+                if (event != null && event.getSequence() > cursor + 1) {
+                    // Slot đã bị ghi đè bởi vòng sau của ring buffer: client tụt quá xa
+                    overflow();
+                    return null;
+                }
+                if (event != null && event.getSequence() == cursor + 1) {
+                    cursor++;
+                    heartbeatPending = false;
+                    return SseEmitter.event()
+                        .id(String.valueOf(event.getSequence()))
+                        .data(event, MediaType.APPLICATION_JSON);
+                }
+                // Event kế tiếp đã có sequence nhưng writer chưa ghi xong slot: writer sẽ báo dispatcher
+            }
+            if (heartbeatPending) {
+                heartbeatPending = false;
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return null;
+        }
+    }
+}
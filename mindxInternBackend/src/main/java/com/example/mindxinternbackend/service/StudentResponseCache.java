@@ -0,0 +1,296 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dao.StudentChangeListeners;
+import com.example.mindxinternbackend.dto.StudentChangeEvent;
+import com.example.mindxinternbackend.entity.Student;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache response JSON đã serialize sẵn cho GET /api/students và GET /api/students/{id}
+ *
+ * - Mỗi entry giữ byte UTF-8 của body và bản gzip (tạo khi có client nhận gzip lần đầu), request trúng
+ *   cache chỉ còn là copy byte ra socket, không dựng lại object graph qua Jackson
+ * - Mỗi lần ghi (qua StudentChangeListeners, trên thread của writer) bỏ ngay entry của student đó và
+ *   các entry danh sách; entry của student khác vẫn dùng tiếp
+ * - Entry còn gắn với ETag lúc tạo (StudentService.collectionETag/studentETag, tức version của DAO) và chỉ
+ *   được dùng khi ETag của request còn trùng. Request đọc dữ liệu trước một lần ghi nhưng store sau khi entry
+ *   bị bỏ vẫn để lại entry mang ETag cũ, không request nào sau lần ghi dùng tới
+ * - Người gọi đọc ETag trước (và trả 304 nếu client đã có bản đó) rồi mới vào cache, dữ liệu luôn đọc sau
+ *   ETag nên entry không bao giờ chứa dữ liệu cũ hơn ETag của nó
+ * - Giới hạn tổng số byte (maxBytes), vượt thì bỏ entry lâu không dùng nhất (LRU)
+ *
+ * Client nhận gzip có ETag riêng (hậu tố -gzip, xem etagFor) vì là một representation khác của cùng tài nguyên
+ */
+@Service
+@RequiredArgsConstructor
+public class StudentResponseCache {
+
+    private static final String LIST_PREFIX = "list:";
+
+    private final StudentService studentService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final StudentChangeListeners changeListeners;
+
+    @Value("${student.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    // Body nhỏ hơn ngưỡng này gzip không đáng (header gzip + CPU), luôn trả bản gốc
+    @Value("${student.response-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    /**
+     * Body sẵn sàng để gửi
+     *
+     * @param etag - null nếu không tính được (student vừa được tạo giữa hai lần đọc)
+     */
+    public record Representation(String etag, byte[] body, boolean gzip) {
+    }
+
+    private static final class Entry {
+        private final String etag;
+        private final byte[] body;
+        // Ghi dưới lock của cache để totalBytes luôn khớp với các entry đang giữ
+        private volatile byte[] gzipBody;
+        private boolean cached;
+
+        private Entry(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // Key của các entry danh sách đang giữ, để một lần ghi không phải duyệt cả các entry student
+    private final Set<String> listKeys = new HashSet<>();
+    private long totalBytes;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    void start() {
+        changeListeners.register(this::invalidate);
+
+        hits = Counter.builder("student.response_cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("student.response_cache.requests").tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder("student.response_cache.evictions").register(meterRegistry);
+        Gauge.builder("student.response_cache.bytes", this, cache -> cache.totalBytes)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("student.response_cache.hit_ratio", this, StudentResponseCache::hitRatio)
+            .register(meterRegistry);
+    }
+
+    /**
+     * ETag của representation gửi cho client: dùng cho If-None-Match trước khi vào cache.
+     * Client nhận gzip luôn có hậu tố -gzip (kể cả khi body quá nhỏ nên được gửi nguyên bản), để ETag
+     * không phụ thuộc vào body chưa được đọc
+     *
+     * @param etag - StudentService.collectionETag/studentETag, có thể null
+     */
+    public static String etagFor(String etag, boolean acceptGzip) {
+        if (etag == null || !acceptGzip) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Danh sách student (có thể lọc), tương đương StudentService.findStudents
+     *
+     * @param etag - StudentService.collectionETag() đọc trước khi gọi
+     */
+    public Representation students(String etag, Student.Gender gender, Integer minAge, Integer maxAge,
+                                   boolean acceptGzip) {
+        Entry entry = lookup(listKey(gender, minAge, maxAge), etag,
+            () -> studentService.findStudents(gender, minAge, maxAge));
+        return represent(entry, acceptGzip);
+    }
+
+    /**
+     * Một student, tương đương StudentService.findStudentById (ném lỗi nếu không tồn tại)
+     *
+     * @param etag - StudentService.studentETag(id) đọc trước khi gọi, null nếu student chưa tồn tại lúc đó
+     */
+    public Representation student(String etag, Integer id, boolean acceptGzip) {
+        if (etag == null) {
+            // Không có version: để StudentService báo không tìm thấy, hoặc trả luôn nếu vừa được tạo
+            return represent(new Entry(null, serialize(studentService.findStudentById(id))), acceptGzip);
+        }
+        return represent(lookup(studentKey(id), etag, () -> studentService.findStudentById(id)), acceptGzip);
+    }
+
+    /**
+     * Chạy trên thread của writer ngay sau khi ghi: chỉ gỡ entry khỏi map dưới lock, không I/O
+     */
+    private void invalidate(StudentChangeEvent.Type type, Integer id, Student student) {
+        lock.lock();
+        try {
+            remove(studentKey(id));
+            for (String key : listKeys.toArray(String[]::new)) {
+                remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    double hitRatio() {
+        double hitCount = hits.count();
+        double total = hitCount + misses.count();
+        return total == 0 ? 0 : hitCount / total;
+    }
+
+    private Entry lookup(String key, String etag, Supplier<Object> loader) {
+        lock.lock();
+        try {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.etag.equals(etag)) {
+                hits.increment();
+                return cached;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        Entry fresh = new Entry(etag, serialize(loader.get()));
+        store(key, fresh);
+        return fresh;
+    }
+
+    private Representation represent(Entry entry, boolean acceptGzip) {
+        String etag = etagFor(entry.etag, acceptGzip);
+        if (!acceptGzip || entry.body.length < gzipMinBytes) {
+            return new Representation(etag, entry.body, false);
+        }
+        byte[] gzipBody = entry.gzipBody;
+        if (gzipBody == null) {
+            gzipBody = attachGzip(entry, gzip(entry.body));
+        }
+        return new Representation(etag, gzipBody, true);
+    }
+
+    private void store(String key, Entry entry) {
+        long size = entry.body.length;
+        if (size > maxBytes) {
+            return;
+        }
+        lock.lock();
+        try {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                previous.cached = false;
+                totalBytes -= weightOf(previous);
+            }
+            if (key.startsWith(LIST_PREFIX)) {
+                listKeys.add(key);
+            }
+            entry.cached = true;
+            totalBytes += size;
+            evictOverflow();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gắn bản gzip vào entry (thread khác có thể đã gắn trước) và tính thêm vào totalBytes nếu entry còn trong cache
+     */
+    private byte[] attachGzip(Entry entry, byte[] gzipBody) {
+        lock.lock();
+        try {
+            if (entry.gzipBody != null) {
+                return entry.gzipBody;
+            }
+            entry.gzipBody = gzipBody;
+            if (entry.cached) {
+                totalBytes += gzipBody.length;
+                evictOverflow();
+            }
+            return gzipBody;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            eldest.remove();
+            forget(evicted.getKey(), evicted.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            forget(key, removed);
+        }
+    }
+
+    /**
+     * Trừ entry vừa gỡ khỏi map ra khỏi totalBytes và listKeys. Gọi khi giữ lock
+     */
+    private void forget(String key, Entry entry) {
+        entry.cached = false;
+        totalBytes -= weightOf(entry);
+        listKeys.remove(key);
+    }
+
+    private static String listKey(Student.Gender gender, Integer minAge, Integer maxAge) {
+        return LIST_PREFIX + gender + ":" + minAge + ":" + maxAge;
+    }
+
+    private static String studentKey(Integer id) {
+        return "student:" + id;
+    }
+
+    private static long weightOf(Entry entry) {
+        byte[] gzipBody = entry.gzipBody;
+        return entry.body.length + (gzipBody != null ? gzipBody.length : 0);
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize student response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
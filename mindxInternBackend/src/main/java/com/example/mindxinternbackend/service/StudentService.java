@@ -1,40 +1,174 @@
 package com.example.mindxinternbackend.service;
 
 import com.example.mindxinternbackend.dao.StudentDao;
+import com.example.mindxinternbackend.dto.StudentBatchOperation;
+import com.example.mindxinternbackend.dto.StudentBatchResult;
+import com.example.mindxinternbackend.dto.StudentPage;
+import com.example.mindxinternbackend.dto.StudentStats;
 import com.example.mindxinternbackend.entity.Student;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
+@Timed("student.service")
 public class StudentService {
 
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int DEFAULT_SEARCH_LIMIT = 20;
+
     private final StudentDao studentDao;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Version của DAO bắt đầu lại khi restart (hoặc khi replay log), nên ETag kèm thêm một epoch
+     * ngẫu nhiên của process để ETag cũ của client không vô tình khớp với dữ liệu sau restart
+     */
+    private final String etagEpoch = Long.toHexString(new SecureRandom().nextLong());
 
     public void createStudent(Student student) {
+        validateAge(student, "create");
+        studentDao.create(student);
+    }
+
+    private void validateAge(Student student, String operation) {
         if (student.getAge() == null || student.getAge() < 18 || student.getAge() > 50) {
+            countValidationFailure(operation);
             throw new IllegalArgumentException("Tuổi phải từ 18 đến 50.");
         }
-        studentDao.create(student);
+    }
+
+    private void countValidationFailure(String operation) {
+        meterRegistry.counter("student.service.validation_failures", "operation", operation).increment();
+    }
+
+    private void countNotFound(String operation) {
+        meterRegistry.counter("student.service.not_found", "operation", operation).increment();
     }
 
     public Student findStudentById(Integer id) {
         Student student = studentDao.findById(id);
 
         if (student == null) {
+            countNotFound("findById");
             throw new RuntimeException("Không tìm thấy sinh viên với ID: " + id);
         }
         return student;
     }
 
+    /**
+     * Strong ETag cho danh sách student (kể cả khi lọc): đổi mỗi khi có bất kỳ thao tác ghi nào.
+     * Phải gọi trước khi đọc dữ liệu để ETag không bao giờ mới hơn body đi kèm
+     */
+    public String collectionETag() {
+        return "\"" + etagEpoch + "-" + studentDao.collectionVersion() + "\"";
+    }
+
+    /**
+     * Strong ETag cho một student, null nếu không tồn tại
+     */
+    public String studentETag(Integer id) {
+        long version = studentDao.recordVersion(id);
+        if (version < 0) {
+            return null;
+        }
+        return "\"" + etagEpoch + "-" + id + "-" + version + "\"";
+    }
+
     public List<Student> findAllStudents() {
         return studentDao.findAll();
     }
 
+    /**
+     * Lọc student theo gender và khoảng tuổi bằng secondary index của DAO
+     * Không truyền điều kiện nào thì trả về toàn bộ như findAllStudents
+     */
+    public List<Student> findStudents(Student.Gender gender, Integer minAge, Integer maxAge) {
+        if (gender == null && minAge == null && maxAge == null) {
+            return studentDao.findAll();
+        }
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            countValidationFailure("filter");
+            throw new IllegalArgumentException("minAge không được lớn hơn maxAge.");
+        }
+        return studentDao.findByFilter(gender, minAge, maxAge);
+    }
+
+    /**
+     * Tìm student theo tên, gõ không dấu vẫn tìm được ("hoang ngoc" -> "Hoàng Ngọc Vương")
+     */
+    public List<Student> searchStudents(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return studentDao.searchByName(query, size);
+    }
+
+    /**
+     * Thống kê tổng số, theo gender và histogram tuổi, đọc từ bộ đếm DAO duy trì sẵn
+     */
+    public StudentStats getStatistics() {
+        return studentDao.stats();
+    }
+
+    /**
+     * Phân trang keyset theo id: chi phí mỗi trang chỉ phụ thuộc vào limit
+     * limit được giới hạn trong khoảng 1..MAX_PAGE_SIZE
+     */
+    public StudentPage findStudentPage(Integer after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Student> items = studentDao.findPage(after, pageSize);
+
+        Integer nextCursor = null;
+        if (items.size() == pageSize) {
+            nextCursor = items.get(items.size() - 1).getId();
+        }
+        return new StudentPage(items, nextCursor);
+    }
+
+    /**
+     * Export toàn bộ student dạng NDJSON (mỗi dòng một JSON object)
+     * Ghi từng record thẳng ra output stream qua buffer tái sử dụng của JsonGenerator,
+     * không dựng cả payload trong memory
+     */
+    public void exportStudents(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Student.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("\n");
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            Iterator<Student> iterator = studentDao.streamAll().iterator();
+            boolean empty = !iterator.hasNext();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+            }
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
     public void updateStudent(Integer id, Student updatedStudent) {
         if (studentDao.findById(id) == null) {
+            countNotFound("update");
             throw new RuntimeException("Không tìm thấy sinh viên cần cập nhật.");
         }
 
@@ -44,4 +178,64 @@ public class StudentService {
     public void deleteStudent(Integer id) {
         studentDao.delete(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * Áp dụng nhiều thao tác create/update/delete trong một request
+     * Mỗi thao tác được validate và thực thi độc lập, lỗi của một item không làm hỏng các item khác
+     */
+    public List<StudentBatchResult> applyBatch(List<StudentBatchOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Batch không được rỗng.");
+        }
+        if (operations.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch tối đa " + MAX_BATCH_SIZE + " thao tác.");
+        }
+
+        List<StudentBatchResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            results.add(applyOperation(i, operations.get(i)));
+        }
+        return results;
+    }
+
+    private StudentBatchResult applyOperation(int index, StudentBatchOperation operation) {
+        if (operation == null || operation.getAction() == null) {
+            return new StudentBatchResult(index, false, null, "Thiếu action.");
+        }
+
+        Integer id = operation.getId();
+        Student student = operation.getStudent();
+        if (operation.getAction() != StudentBatchOperation.Action.CREATE && id == null) {
+            return new StudentBatchResult(index, false, null, "Thiếu id.");
+        }
+        try {
+            switch (operation.getAction()) {
+                case CREATE:
+                    if (student == null) {
+                        return new StudentBatchResult(index, false, null, "Thiếu thông tin sinh viên.");
+                    }
+                    validateAge(student, "batch");
+                    studentDao.create(student);
+                    return new StudentBatchResult(index, true, student.getId(), "Created");
+                case UPDATE:
+                    if (student == null) {
+                        return new StudentBatchResult(index, false, id, "Thiếu thông tin sinh viên.");
+                    }
+                    validateAge(student, "batch");
+                    if (studentDao.findById(id) == null) {
+                        countNotFound("batch");
+                        return new StudentBatchResult(index, false, id, "Không tìm thấy sinh viên cần cập nhật.");
+                    }
+                    studentDao.update(id, student);
+                    return new StudentBatchResult(index, true, id, "Updated");
+                case DELETE:
+                    studentDao.delete(id);
+                    return new StudentBatchResult(index, true, id, "Deleted");
+                default:
+                    return new StudentBatchResult(index, false, id, "Action không hợp lệ.");
+            }
+        } catch (IllegalArgumentException e) {
+            return new StudentBatchResult(index, false, id, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.mindxinternbackend.benchmark;
+
+import com.example.mindxinternbackend.dao.ColumnarStudentDao;
+import com.example.mindxinternbackend.dao.StudentDao;
+import com.example.mindxinternbackend.dao.StudentDaoImpl;
+import com.example.mindxinternbackend.entity.Student;
+
+import java.util.SplittableRandom;
+
+/**
+ * Dữ liệu giả lập dùng chung cho các benchmark: tên tiếng Việt ghép ngẫu nhiên, tuổi 18..50
+ */
+final class BenchmarkData {
+
+    private static final String[] FAMILY_NAMES = {
+        "Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng", "Bùi", "Đỗ"
+    };
+    private static final String[] MIDDLE_NAMES = {
+        "Văn", "Thị", "Ngọc", "Minh", "Thu", "Hữu", "Đức", "Thanh", "Quang", "Hoài"
+    };
+    private static final String[] GIVEN_NAMES = {
+        "An", "Bình", "Chi", "Dũng", "Giang", "Hà", "Hải", "Khánh", "Linh", "Mai", "Nam", "Phúc",
+        "Quân", "Sơn", "Trang", "Tú", "Vương", "Yến", "Long", "Hương"
+    };
+
+    private BenchmarkData() {
+        // Utility class
+    }
+
+    /**
+     * @param store - "memory" (StudentDaoImpl, baseline) hoặc "columnar"
+     */
+    static StudentDao newStore(String store) {
+        switch (store) {
+            case "memory":
+                return new StudentDaoImpl(false);
+            case "columnar":
+                return new ColumnarStudentDao(false);
+            default:
+                throw new IllegalArgumentException("Unknown store: " + store);
+        }
+    }
+
+    static StudentDao populatedStore(String store, int size) {
+        StudentDao dao = newStore(store);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < size; i++) {
+            dao.create(randomStudent(random));
+        }
+        return dao;
+    }
+
+    static Student randomStudent(SplittableRandom random) {
+        String name = FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)] + " "
+            + MIDDLE_NAMES[random.nextInt(MIDDLE_NAMES.length)] + " "
+            + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+        Student.Gender gender = random.nextBoolean() ? Student.Gender.NAM : Student.Gender.NU;
+        return new Student(null, name, 18 + random.nextInt(33), gender);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.mindxinternbackend.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chạy JMH với GC profiler (allocation/op) cho từng số thread, mỗi lần ghi kết quả JSON
+ * vào target/jmh/result-t{threads}.json
+ *
+ * Tham số: các option bình thường của JMH, thêm --threads=1,4,8 (mặc định 1,4)
+ * Ví dụ: mvn -Pjmh test-compile exec:exec -Djmh.args="StudentDaoBenchmark -p size=1000,10000 --threads=1,8"
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String threadCounts = "1,4";
+        List<String> jmhArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--threads=")) {
+                threadCounts = arg.substring("--threads=".length());
+            } else {
+                jmhArgs.add(arg);
+            }
+        }
+
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs.toArray(String[]::new));
+        new File("target/jmh").mkdirs();
+        for (String threads : threadCounts.split(",")) {
+            Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .threads(Integer.parseInt(threads.trim()))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/result-t" + threads.trim() + ".json")
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
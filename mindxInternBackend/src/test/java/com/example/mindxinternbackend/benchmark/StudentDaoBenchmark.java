@@ -0,0 +1,129 @@
+package com.example.mindxinternbackend.benchmark;
+
+import com.example.mindxinternbackend.dao.StudentDao;
+import com.example.mindxinternbackend.entity.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark các thao tác CRUD của StudentDao ở nhiều kích thước dữ liệu.
+ * store=memory (StudentDaoImpl) là baseline để so sánh với các store khác.
+ *
+ * - findById/findAll/update: AverageTime trên store có sẵn size dòng, kích thước không đổi
+ * - create/delete: mỗi lần gọi tạo/xóa WRITE_BATCH dòng (SingleShotTime, chia theo
+ *   OperationsPerInvocation), store được đưa về đúng size dòng sau mỗi iteration để số liệu
+ *   không bị trôi theo kích thước store
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StudentDaoBenchmark {
+
+    static final int WRITE_BATCH = 1000;
+
+    @Param({"memory", "columnar"})
+    public String store;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    StudentDao dao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dao = BenchmarkData.populatedStore(store, size);
+    }
+
+    /**
+     * Các dòng do một thread tạo ra trong create(), hoặc chuẩn bị sẵn cho delete()
+     */
+    @State(Scope.Thread)
+    public static class ThreadBatch {
+        final SplittableRandom random = new SplittableRandom();
+        final int[] ids = new int[WRITE_BATCH];
+        int count;
+
+        @Setup(Level.Iteration)
+        public void prepare(StudentDaoBenchmark benchmark, BenchmarkParams params) {
+            count = 0;
+            if (params.getBenchmark().endsWith(".delete")) {
+                for (int i = 0; i < WRITE_BATCH; i++) {
+                    Student student = BenchmarkData.randomStudent(random);
+                    benchmark.dao.create(student);
+                    ids[count++] = student.getId();
+                }
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void cleanUp(StudentDaoBenchmark benchmark) {
+            // Xóa phần create() đã thêm để iteration sau vẫn đo trên size dòng
+            for (int i = 0; i < count; i++) {
+                benchmark.dao.delete(ids[i]);
+            }
+            count = 0;
+        }
+    }
+
+    @Benchmark
+    public Student findById() {
+        return dao.findById(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public List<Student> findAll() {
+        return dao.findAll();
+    }
+
+    @Benchmark
+    public void update(ThreadBatch batch) {
+        int id = 1 + ThreadLocalRandom.current().nextInt(size);
+        dao.update(id, BenchmarkData.randomStudent(batch.random));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20, batchSize = 1)
+    @Measurement(iterations = 50, batchSize = 1)
+    @OperationsPerInvocation(WRITE_BATCH)
+    public void create(ThreadBatch batch) {
+        for (int i = 0; i < WRITE_BATCH; i++) {
+            Student student = BenchmarkData.randomStudent(batch.random);
+            dao.create(student);
+            batch.ids[batch.count++] = student.getId();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20, batchSize = 1)
+    @Measurement(iterations = 50, batchSize = 1)
+    @OperationsPerInvocation(WRITE_BATCH)
+    public void delete(ThreadBatch batch) {
+        for (int i = 0; i < batch.count; i++) {
+            dao.delete(batch.ids[i]);
+        }
+        batch.count = 0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.mindxinternbackend.benchmark;
+
+import com.example.mindxinternbackend.dto.StudentBatchOperation;
+import com.example.mindxinternbackend.dto.StudentBatchResult;
+import com.example.mindxinternbackend.entity.Student;
+import com.example.mindxinternbackend.service.StudentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark các nhánh validate của StudentService: lỗi validate đi qua exception,
+ * nên chi phí (kể cả allocation của stack trace) được đo riêng so với nhánh hợp lệ
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StudentServiceBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"memory", "columnar"})
+    public String store;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    StudentService service;
+    List<StudentBatchOperation> invalidBatch;
+    List<StudentBatchOperation> validBatch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new StudentService(BenchmarkData.populatedStore(store, size), new ObjectMapper(),
+            new SimpleMeterRegistry());
+
+        invalidBatch = new ArrayList<>(BATCH_SIZE);
+        validBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int id = 1 + i * (size / BATCH_SIZE);
+            invalidBatch.add(new StudentBatchOperation(StudentBatchOperation.Action.UPDATE, id,
+                new Student(null, "Tuổi sai", 10, Student.Gender.NAM)));
+            validBatch.add(new StudentBatchOperation(StudentBatchOperation.Action.UPDATE, id,
+                new Student(null, "Tuổi đúng", 20 + i % 30, Student.Gender.NU)));
+        }
+    }
+
+    @Benchmark
+    public Object createInvalidAge() {
+        try {
+            service.createStudent(new Student(null, "Tuổi sai", 10, Student.Gender.NAM));
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object findStudentsInvalidRange() {
+        try {
+            return service.findStudents(null, 30, 20);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object findStudentByIdMissing() {
+        try {
+            return service.findStudentById(-1);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<StudentBatchResult> applyBatchInvalid() {
+        return service.applyBatch(invalidBatch);
+    }
+
+    @Benchmark
+    public List<StudentBatchResult> applyBatchValid() {
+        return service.applyBatch(validBatch);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.mindxinternbackend.benchmark;
+
+import com.example.mindxinternbackend.dao.StudentDao;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo bộ nhớ mỗi dòng của từng store, là nguồn của bảng so sánh trong javadoc ColumnarStudentDao.
+ *
+ * Mỗi lần gọi nạp size dòng BenchmarkData (~2.400 tên khác nhau) vào một store mới, rồi lấy heap đã dùng
+ * sau full GC trừ đi mức trước khi nạp; off-heap là phần tăng thêm của pool direct buffer (arena tên).
+ * Kết quả nằm ở hai counter phụ heapBytesPerRow và offHeapBytesPerRow, thời gian nạp chỉ để tham khảo.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="StudentStoreFootprintBenchmark --threads=1"
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-XX:+UseG1GC"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StudentStoreFootprintBenchmark {
+
+    @Param({"memory", "columnar"})
+    public String store;
+
+    @Param({"1000000"})
+    public int size;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double heapBytesPerRow;
+        public double offHeapBytesPerRow;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            heapBytesPerRow = 0;
+            offHeapBytesPerRow = 0;
+        }
+    }
+
+    @Benchmark
+    public void load(Footprint footprint) {
+        long heapBefore = usedHeapAfterGc();
+        long offHeapBefore = directMemoryUsed();
+
+        StudentDao dao = BenchmarkData.populatedStore(store, size);
+        // Snapshot/List của findAll là một phần chi phí thật khi phục vụ GET /api/students
+        dao.findAll();
+
+        footprint.heapBytesPerRow = (double) (usedHeapAfterGc() - heapBefore) / size;
+        footprint.offHeapBytesPerRow = (double) (directMemoryUsed() - offHeapBefore) / size;
+        // Giữ store sống tới sau lần đo cuối
+        Reference.reachabilityFence(dao);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directMemoryUsed() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentChangeEvent;
+import com.example.mindxinternbackend.entity.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangePublishingStudentDaoTest {
+
+    @Test
+    void publishesOnlyAppliedWritesWithStateAfterWrite() {
+        List<StudentChangeEvent> events = new ArrayList<>();
+        StudentDao dao = new ChangePublishingStudentDao(new StudentDaoImpl(false),
+            (type, id, student) -> events.add(new StudentChangeEvent(events.size() + 1, type, id, student)));
+
+        Student request = new Student(null, "A", 20, Student.Gender.NU);
+        dao.create(request);
+        request.setName("changed by caller");
+        dao.update(1, new Student(null, "B", 21, Student.Gender.NAM));
+        dao.update(2, new Student(null, "Missing", 21, Student.Gender.NAM));
+        dao.delete(1);
+        dao.delete(1);
+
+        assertThat(events).extracting(StudentChangeEvent::getType).containsExactly(
+            StudentChangeEvent.Type.CREATED, StudentChangeEvent.Type.UPDATED, StudentChangeEvent.Type.DELETED);
+        assertThat(events.get(0).getStudent()).isEqualTo(new Student(1, "A", 20, Student.Gender.NU));
+        assertThat(events.get(1).getStudent()).isEqualTo(new Student(1, "B", 21, Student.Gender.NAM));
+        assertThat(events.get(2).getStudent()).isNull();
+    }
+
+    @Test
+    void createdIsPublishedBeforeAnyConcurrentWriteToTheNewId() throws InterruptedException {
+        List<StudentChangeEvent.Type> events = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<StudentDao> daoRef = new AtomicReference<>();
+        AtomicReference<Thread> writer = new AtomicReference<>();
+        StudentDao dao = new ChangePublishingStudentDao(new StudentDaoImpl(false), (type, id, student) -> {
+            events.add(type);
+            if (type == StudentChangeEvent.Type.CREATED) {
+                // Bản ghi đã thấy được qua findById: một writer khác ghi lên id này phải chờ tới khi CREATED xong
+                assertThat(daoRef.get().findById(id)).isNotNull();
+                Thread thread = new Thread(() -> daoRef.get().delete(id));
+                thread.start();
+                writer.set(thread);
+                try {
+                    thread.join(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                assertThat(thread.isAlive()).isTrue();
+            }
+        });
+        daoRef.set(dao);
+
+        dao.create(new Student(null, "A", 20, Student.Gender.NU));
+        writer.get().join(5000);
+
+        assertThat(events).containsExactly(StudentChangeEvent.Type.CREATED, StudentChangeEvent.Type.DELETED);
+        assertThat(dao.findById(1)).isNull();
+    }
+}
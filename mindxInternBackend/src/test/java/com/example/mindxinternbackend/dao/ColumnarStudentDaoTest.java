@@ -0,0 +1,108 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.entity.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnarStudentDaoTest {
+
+    @Test
+    void crudAndFiltersMaterializeStudents() {
+        ColumnarStudentDao dao = new ColumnarStudentDao();
+        Student created = new Student(null, "Trần Thị Mai", 24, Student.Gender.NU);
+        dao.create(created);
+
+        assertThat(created.getId()).isEqualTo(4);
+        assertThat(dao.findById(4)).isEqualTo(new Student(4, "Trần Thị Mai", 24, Student.Gender.NU));
+
+        dao.update(4, new Student(null, "Trần Thị Mai", 26, null));
+        assertThat(dao.findById(4).getGender()).isNull();
+        assertThat(dao.findByFilter(null, 25, 30)).extracting(Student::getId).containsExactly(4);
+        assertThat(dao.findByFilter(Student.Gender.NAM, null, null)).extracting(Student::getId).containsExactly(1, 2);
+        assertThat(dao.searchByName("tran thi", 5)).extracting(Student::getId).containsExactly(4);
+
+        long version = dao.collectionVersion();
+        long recordVersion = dao.recordVersion(3);
+        dao.delete(2);
+        assertThat(dao.findById(2)).isNull();
+        assertThat(dao.recordVersion(2)).isEqualTo(-1);
+        assertThat(dao.recordVersion(3)).isEqualTo(recordVersion);
+        assertThat(dao.collectionVersion()).isGreaterThan(version);
+        assertThat(dao.findPage(1, 10)).extracting(Student::getId).containsExactly(3, 4);
+        assertThat(dao.stats().getTotal()).isEqualTo(3);
+        assertThat(dao.stats().getByGender()).containsEntry(Student.Gender.NAM, 1L).containsEntry(Student.Gender.NU, 1L);
+        assertThat(dao.stats().getUnknownGender()).isEqualTo(1);
+    }
+
+    @Test
+    void findAllIsMaterializedOncePerVersion() {
+        ColumnarStudentDao dao = new ColumnarStudentDao();
+        List<Student> first = dao.findAll();
+
+        assertThat(dao.findAll()).isSameAs(first);
+        assertThatThrownBy(() -> first.get(0).setName("x")).isInstanceOf(UnsupportedOperationException.class);
+
+        dao.update(1, new Student(null, "Tên mới", 30, Student.Gender.NU));
+        List<Student> updated = dao.findAll();
+        assertThat(updated).isNotSameAs(first);
+        assertThat(updated.get(0).getName()).isEqualTo("Tên mới");
+        assertThat(first.get(0).getName()).isNotEqualTo("Tên mới");
+    }
+
+    @Test
+    void compactsDeletedRowsAndKeepsIdOrder() {
+        ColumnarStudentDao dao = new ColumnarStudentDao(false);
+        for (int i = 0; i < 3000; i++) {
+            dao.create(new Student(null, "Student " + (i % 10), 20 + i % 30, i % 2 == 0 ? Student.Gender.NAM : Student.Gender.NU));
+        }
+        for (int id = 1; id <= 2500; id++) {
+            dao.delete(id);
+        }
+        dao.restore(new Student(100, "Restored", 30, Student.Gender.NU));
+
+        assertThat(dao.findAll()).hasSize(501);
+        assertThat(dao.findAll().get(0).getName()).isEqualTo("Restored");
+        assertThat(dao.streamAll().count()).isEqualTo(501);
+        assertThat(dao.findById(2501).getGender()).isEqualTo(Student.Gender.NAM);
+
+        Student next = new Student(null, "Next", 20, Student.Gender.NU);
+        dao.create(next);
+        assertThat(next.getId()).isEqualTo(3001);
+    }
+
+    @Test
+    void reclaimsNamesNoLongerUsedByAnyRow() {
+        ColumnarStudentDao dao = new ColumnarStudentDao(false);
+        for (int i = 0; i < 200; i++) {
+            dao.create(new Student(null, "Student " + i, 20, Student.Gender.NAM));
+        }
+        long initialBytes = dao.nameDictionaryBytes();
+
+        // ~1 MB tên không lặp lại, chỉ tên cuối cùng của mỗi dòng còn được dùng
+        for (int round = 0; round < 250; round++) {
+            for (int id = 1; id <= 200; id++) {
+                dao.update(id, new Student(null, "Tên đổi lần " + round + " của " + id, 20, Student.Gender.NAM));
+            }
+        }
+        for (int id = 101; id <= 200; id++) {
+            dao.delete(id);
+        }
+
+        assertThat(dao.nameDictionaryBytes()).isLessThan(initialBytes * 4);
+        assertThat(dao.findById(7).getName()).isEqualTo("Tên đổi lần 249 của 7");
+        assertThat(dao.findAll()).hasSize(100).allMatch(student -> student.getName().startsWith("Tên đổi lần 249 "));
+        assertThat(dao.searchByName("ten doi lan 249 cua 42", 1)).extracting(Student::getId).containsExactly(42);
+    }
+
+    @Test
+    void rejectsAgesOutsideByteColumn() {
+        ColumnarStudentDao dao = new ColumnarStudentDao(false);
+        assertThatThrownBy(() -> dao.create(new Student(null, "Old", 200, Student.Gender.NAM)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(dao.findAll()).isEmpty();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.entity.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DurableStudentDaoTest {
+
+    @TempDir
+    Path directory;
+
+    private DurableStudentDao open() throws IOException {
+        return DurableStudentDao.open(new StudentDaoImpl(false), directory, Long.MAX_VALUE, Duration.ofHours(1));
+    }
+
+    @Test
+    void replaysLogAfterRestart() throws IOException {
+        try (DurableStudentDao dao = open()) {
+            assertThat(dao.findAll()).hasSize(3);
+            dao.create(new Student(null, "Trần Văn An", 20, Student.Gender.NAM));
+            dao.update(1, new Student(null, "Hoàng Ngọc Vương", 23, Student.Gender.NAM));
+            dao.delete(2);
+        }
+
+        try (DurableStudentDao dao = open()) {
+            assertThat(dao.findAll()).extracting(Student::getId).containsExactly(1, 3, 4);
+            assertThat(dao.findById(1).getAge()).isEqualTo(23);
+            assertThat(dao.searchByName("tran van", 10)).extracting(Student::getId).containsExactly(4);
+
+            Student created = new Student(null, "Mới", 21, Student.Gender.NU);
+            dao.create(created);
+            assertThat(created.getId()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void recoversFromSnapshotPlusLogTail() throws IOException {
+        try (DurableStudentDao dao = open()) {
+            dao.create(new Student(null, "Before", 20, Student.Gender.NU));
+            dao.delete(4);
+            dao.compact();
+            dao.create(new Student(null, "After", 21, Student.Gender.NAM));
+        }
+
+        assertThat(listFiles("snapshot-")).hasSize(1);
+        assertThat(listFiles("log-")).hasSize(1);
+
+        try (DurableStudentDao dao = open()) {
+            assertThat(dao.findAll()).extracting(Student::getName)
+                .containsExactly("Hoàng Ngọc Vương", "Hoàng Nguyên Phúc", "Nguyễn Thu Ngọc", "After");
+            // id 4 đã bị xóa trước snapshot nhưng không được cấp lại
+            assertThat(dao.findById(5).getName()).isEqualTo("After");
+        }
+    }
+
+    @Test
+    void truncatesTornRecordAtEndOfLog() throws IOException {
+        try (DurableStudentDao dao = open()) {
+            dao.create(new Student(null, "Kept", 20, Student.Gender.NU));
+        }
+
+        Path segment = listFiles("log-").get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        try (DurableStudentDao dao = open()) {
+            assertThat(dao.findAll()).hasSize(4);
+            assertThat(dao.findById(4).getName()).isEqualTo("Kept");
+        }
+    }
+
+    @Test
+    void refusesToRecoverPastACorruptRecordInTheMiddleOfTheLog() throws IOException {
+        try (DurableStudentDao dao = open()) {
+            dao.create(new Student(null, "First", 20, Student.Gender.NU));
+        }
+        try (DurableStudentDao dao = open()) {
+            dao.create(new Student(null, "Second", 21, Student.Gender.NAM));
+        }
+
+        List<Path> segments = listFiles("log-");
+        assertThat(segments).hasSize(2);
+        Path first = segments.get(0);
+        long size = Files.size(first);
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}), size - 1);
+        }
+
+        assertThatThrownBy(this::open).isInstanceOf(IOException.class).hasMessageContaining("thiếu record");
+        // Không cắt gì khi từ chối khởi động, để còn cứu dữ liệu bằng tay
+        assertThat(Files.size(first)).isEqualTo(size);
+    }
+
+    private List<Path> listFiles(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+}
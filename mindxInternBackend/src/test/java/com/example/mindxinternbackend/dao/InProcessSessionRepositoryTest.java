@@ -0,0 +1,180 @@
+package com.example.mindxinternbackend.dao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InProcessSessionRepositoryTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void sweeperExpiresIdleSessionsButKeepsActiveOnes() {
+        InProcessSessionRepository repository = repository(100);
+        MapSession idle = saveNew(repository);
+        MapSession active = saveNew(repository);
+
+        clock.advance(Duration.ofMinutes(20));
+        MapSession touched = repository.findById(active.getId());
+        touched.setLastAccessedTime(clock.instant());
+        repository.save(touched);
+
+        clock.advance(Duration.ofMinutes(11));
+        repository.sweep();
+        assertThat(repository.findById(idle.getId())).isNull();
+        assertThat(repository.findById(active.getId())).isNotNull();
+        assertThat(repository.size()).isEqualTo(1);
+
+        // Lần hẹn đầu của phiên active đã tới hạn và được hẹn lại theo lastAccessedTime mới
+        clock.advance(Duration.ofMinutes(20));
+        repository.sweep();
+        assertThat(repository.size()).isZero();
+        assertThat(meterRegistry.counter("auth.sessions.evicted", "reason", "expired").count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.sessions.live").gauge().value()).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSessionsAboveTheCap() {
+        InProcessSessionRepository repository = repository(3);
+        MapSession first = saveNew(repository);
+        MapSession second = saveNew(repository);
+        saveNew(repository);
+
+        repository.save(repository.findById(first.getId()));
+        MapSession fourth = saveNew(repository);
+
+        assertThat(repository.findById(second.getId())).isNull();
+        assertThat(repository.findById(first.getId())).isNotNull();
+        assertThat(repository.findById(fourth.getId())).isNotNull();
+        assertThat(repository.size()).isEqualTo(3);
+        assertThat(meterRegistry.counter("auth.sessions.evicted", "reason", "capacity").count()).isEqualTo(1);
+    }
+
+    @Test
+    void changedSessionIdReplacesTheOldEntry() {
+        InProcessSessionRepository repository = repository(100);
+        MapSession session = repository.findById(saveNew(repository).getId());
+        String oldId = session.getId();
+        session.setAttribute("user", "sub-1");
+        session.changeSessionId();
+        repository.save(session);
+
+        assertThat(repository.findById(oldId)).isNull();
+        assertThat(repository.findById(session.getId()).<String>getAttribute("user")).isEqualTo("sub-1");
+
+        clock.advance(Duration.ofMinutes(31));
+        repository.sweep();
+        assertThat(repository.size()).isZero();
+    }
+
+    @Test
+    void removedSessionsLeaveTheTimingWheel() {
+        InProcessSessionRepository repository = repository(3);
+        List<MapSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sessions.add(saveNew(repository));
+        }
+        assertThat(repository.size()).isEqualTo(3);
+        assertThat(repository.scheduledCount()).isEqualTo(3);
+
+        repository.deleteById(sessions.get(9).getId());
+        MapSession renamed = repository.findById(sessions.get(8).getId());
+        renamed.changeSessionId();
+        repository.save(renamed);
+        assertThat(repository.size()).isEqualTo(2);
+        assertThat(repository.scheduledCount()).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(31));
+        repository.sweep();
+        assertThat(repository.scheduledCount()).isZero();
+    }
+
+    @Test
+    void timingWheelReschedulesAndCancelsByKey() {
+        TimingWheel wheel = new TimingWheel(0);
+        wheel.schedule("a", 100);
+        wheel.schedule("b", 5_000);
+        wheel.schedule("a", 10_000);
+        wheel.cancel("b");
+        wheel.cancel("missing");
+        assertThat(wheel.size()).isEqualTo(1);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(9_999, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(10_000, fired::add);
+        assertThat(fired).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void timingWheelFiresEachDeadlineOnceAcrossLevels() {
+        TimingWheel wheel = new TimingWheel(10);
+        long[] deadlines = {11, 70, 100, 4_200, 300_000, 20_000_000};
+        for (long deadline : deadlines) {
+            wheel.schedule(Long.toString(deadline), deadline);
+        }
+
+        List<String> fired = new ArrayList<>();
+        for (long deadline : deadlines) {
+            wheel.advance(deadline - 1, fired::add);
+            assertThat(fired).doesNotContain(Long.toString(deadline));
+            wheel.advance(deadline, fired::add);
+            assertThat(fired).endsWith(Long.toString(deadline));
+        }
+        assertThat(fired).hasSize(deadlines.length);
+        assertThat(wheel.size()).isZero();
+    }
+
+    private InProcessSessionRepository repository(int maxSessions) {
+        return new InProcessSessionRepository(1, maxSessions, Duration.ofMinutes(30), Duration.ofSeconds(1),
+            clock, meterRegistry);
+    }
+
+    private MapSession saveNew(InProcessSessionRepository repository) {
+        MapSession session = repository.createSession();
+        session.setCreationTime(clock.instant());
+        session.setLastAccessedTime(clock.instant());
+        repository.save(session);
+        return session;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.mindxinternbackend.dao;
+
+import com.example.mindxinternbackend.dto.StudentStats;
+import com.example.mindxinternbackend.entity.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StudentDaoImplTest {
+
+    @Test
+    void findByIdWorksBeyondIntegerCache() {
+        StudentDaoImpl dao = new StudentDaoImpl();
+        for (int i = 0; i < 300; i++) {
+            dao.create(new Student(null, "Student " + i, 20, Student.Gender.NAM));
+        }
+
+        Student student = dao.findById(Integer.valueOf(250));
+        assertThat(student).isNotNull();
+        assertThat(student.getId()).isEqualTo(250);
+
+        dao.update(250, new Student(null, "Updated", 30, Student.Gender.NU));
+        assertThat(dao.findById(250).getName()).isEqualTo("Updated");
+
+        dao.delete(250);
+        assertThat(dao.findById(250)).isNull();
+    }
+
+    @Test
+    void findPageSeeksPastCursor() {
+        StudentDaoImpl dao = new StudentDaoImpl();
+        for (int i = 0; i < 10; i++) {
+            dao.create(new Student(null, "Student " + i, 20, Student.Gender.NAM));
+        }
+        dao.delete(5);
+
+        List<Student> firstPage = dao.findPage(null, 4);
+        assertThat(firstPage).extracting(Student::getId).containsExactly(1, 2, 3, 4);
+
+        List<Student> secondPage = dao.findPage(4, 4);
+        assertThat(secondPage).extracting(Student::getId).containsExactly(6, 7, 8, 9);
+
+        assertThat(dao.findPage(13, 4)).isEmpty();
+    }
+
+    @Test
+    void findByFilterFollowsUpdatesAndDeletes() {
+        StudentDaoImpl dao = new StudentDaoImpl();
+        dao.create(new Student(null, "A", 19, Student.Gender.NU));
+        dao.create(new Student(null, "B", 24, Student.Gender.NU));
+        dao.create(new Student(null, "C", 30, Student.Gender.NAM));
+
+        assertThat(dao.findByFilter(Student.Gender.NU, 20, 25))
+            .extracting(Student::getName).containsExactly("Nguyễn Thu Ngọc", "B");
+        assertThat(dao.findByFilter(null, 25, null))
+            .extracting(Student::getName).containsExactly("C");
+
+        dao.update(6, new Student(null, "C", 21, Student.Gender.NU));
+        dao.delete(5);
+
+        assertThat(dao.findByFilter(Student.Gender.NU, 20, 25))
+            .extracting(Student::getName).containsExactly("Nguyễn Thu Ngọc", "C");
+        assertThat(dao.findByFilter(Student.Gender.NAM, null, null))
+            .extracting(Student::getId).containsExactly(1, 2);
+    }
+
+    @Test
+    void findAllReturnsImmutableSnapshot() {
+        StudentDaoImpl dao = new StudentDaoImpl();
+        List<Student> before = dao.findAll();
+
+        assertThat(dao.findAll()).isSameAs(before);
+        assertThatThrownBy(() -> before.add(new Student())).isInstanceOf(UnsupportedOperationException.class);
+
+        Student request = new Student(null, "D", 20, Student.Gender.NU);
+        dao.create(request);
+        request.setName("changed by caller");
+
+        List<Student> after = dao.findAll();
+        assertThat(before).hasSize(3);
+        assertThat(after).hasSize(4);
+        assertThat(after.get(3).getName()).isEqualTo("D");
+    }
+
+    @Test
+    void snapshotIsPublishedByWritersAcrossChunks() {
+        StudentDaoImpl dao = new StudentDaoImpl(false);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            dao.create(new Student(null, "Student " + i, 20, Student.Gender.NAM));
+        }
+        List<Student> beforeDeletes = dao.findAll();
+        for (int id = 1; id <= 2000; id++) {
+            if (id % 3 == 0 || (id > 512 && id <= 1024)) {
+                dao.delete(id);
+            } else {
+                expected.add(id);
+            }
+        }
+
+        List<Student> snapshot = dao.findAll();
+        assertThat(snapshot).extracting(Student::getId).containsExactlyElementsOf(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(snapshot.get(i).getId()).isEqualTo(expected.get(i));
+        }
+        assertThat(dao.streamAll().map(Student::getId).toList()).isEqualTo(expected);
+        assertThat(beforeDeletes).hasSize(2000);
+        assertThat(beforeDeletes.get(1999).getId()).isEqualTo(2000);
+    }
+
+    @Test
+    void storedStudentsAreReadOnly() {
+        StudentDaoImpl dao = new StudentDaoImpl();
+
+        assertThatThrownBy(() -> dao.findById(1).setName("Hacked")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> dao.findAll().get(0).setAge(99)).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(dao.findById(1).getName()).isEqualTo("Hoàng Ngọc Vương");
+        assertThat(dao.findById(1)).isEqualTo(new Student(1, "Hoàng Ngọc Vương", 22, Student.Gender.NAM));
+    }
+
+    @Test
+    void versionsChangeOnlyWhenDataChanges() {
+        StudentDaoImpl dao = new StudentDaoImpl();
+        long collection = dao.collectionVersion();
+        long first = dao.recordVersion(1);
+        long second = dao.recordVersion(2);
+
+        dao.update(99, new Student(null, "Missing", 20, Student.Gender.NAM));
+        dao.delete(99);
+        assertThat(dao.collectionVersion()).isEqualTo(collection);
+
+        dao.update(1, new Student(null, "Updated", 21, Student.Gender.NAM));
+        assertThat(dao.collectionVersion()).isGreaterThan(collection);
+        assertThat(dao.recordVersion(1)).isGreaterThan(first);
+        assertThat(dao.recordVersion(2)).isEqualTo(second);
+
+        dao.delete(2);
+        assertThat(dao.recordVersion(2)).isEqualTo(-1);
+        dao.restore(new Student(2, "Back", 22, Student.Gender.NAM));
+        assertThat(dao.recordVersion(2)).isGreaterThan(second);
+    }
+
+    @Test
+    void statsFollowWrites() {
+        StudentDaoImpl dao = new StudentDaoImpl();
+        dao.create(new Student(null, "D", 30, null));
+        dao.update(1, new Student(null, "A", 24, Student.Gender.NU));
+        dao.delete(2);
+
+        StudentStats stats = dao.stats();
+        assertThat(stats.getTotal()).isEqualTo(3);
+        assertThat(stats.getByGender()).containsEntry(Student.Gender.NU, 2L).containsEntry(Student.Gender.NAM, 0L);
+        assertThat(stats.getUnknownGender()).isEqualTo(1);
+        assertThat(stats.getAgeHistogram()).containsExactly(
+            Map.entry(22, 1L), Map.entry(24, 1L), Map.entry(30, 1L));
+        assertThat(stats.getAverageAge()).isEqualTo(76 / 3.0);
+    }
+
+    @Test
+    void concurrentCreatesGetUniqueIds() throws Exception {
+        StudentDaoImpl dao = new StudentDaoImpl();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                futures.add(executor.submit(() -> {
+                    Student student = new Student(null, "Concurrent", 20, Student.Gender.NU);
+                    dao.create(student);
+                    return student.getId();
+                }));
+            }
+
+            Set<Integer> ids = new HashSet<>();
+            for (Future<Integer> future : futures) {
+                ids.add(future.get());
+            }
+            assertThat(ids).hasSize(2000);
+            assertThat(dao.findAll()).hasSize(2003);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentWritersToSameIdsConvergeInTheSnapshot() throws Exception {
+        StudentDaoImpl dao = new StudentDaoImpl(false);
+        for (int i = 0; i < 4; i++) {
+            dao.create(new Student(null, "Start", 0, Student.Gender.NU));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int writer = thread;
+                writers.add(executor.submit(() -> {
+                    for (int age = 1; age <= 2000; age++) {
+                        dao.update(1 + age % 4, new Student(null, "Writer " + writer, age, Student.Gender.NAM));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Snapshot (publish bằng CAS) phải khớp bản ghi cuối cùng trong map của từng id
+        assertThat(dao.findAll()).hasSize(4).allSatisfy(student ->
+            assertThat(student).isEqualTo(dao.findById(student.getId())));
+    }
+
+    @Test
+    void readersNeverSeeNewVersionWithOldData() throws Exception {
+        StudentDaoImpl dao = new StudentDaoImpl(false);
+        dao.create(new Student(null, "Writer", 0, Student.Gender.NAM));
+        int writes = 20_000;
+        // Chỉ một writer nên version ngay sau mỗi update chính là version của lần ghi đó
+        Map<Long, Integer> ageByRecordVersion = new ConcurrentHashMap<>();
+        Map<Long, Integer> ageByCollectionVersion = new ConcurrentHashMap<>();
+        AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int age = 1; age <= writes; age++) {
+                    dao.update(1, new Student(null, "Writer", age, Student.Gender.NAM));
+                    ageByRecordVersion.put(dao.recordVersion(1), age);
+                    ageByCollectionVersion.put(dao.collectionVersion(), age);
+                }
+                done.set(true);
+            });
+            List<Future<List<long[]>>> readers = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                readers.add(executor.submit(() -> {
+                    // {loại (0 = record, 1 = collection), version đọc trước, tuổi đọc sau}
+                    List<long[]> observations = new ArrayList<>();
+                    while (!done.get()) {
+                        long recordVersion = dao.recordVersion(1);
+                        observations.add(new long[]{0, recordVersion, dao.findById(1).getAge()});
+
+                        long collectionVersion = dao.collectionVersion();
+                        for (Student student : dao.findByFilter(null, 0, Integer.MAX_VALUE)) {
+                            observations.add(new long[]{1, collectionVersion, student.getAge()});
+                        }
+                    }
+                    return observations;
+                }));
+            }
+
+            writer.get();
+            for (Future<List<long[]>> reader : readers) {
+                for (long[] observation : reader.get()) {
+                    Map<Long, Integer> ages = observation[0] == 0 ? ageByRecordVersion : ageByCollectionVersion;
+                    assertThat(observation[2]).isGreaterThanOrEqualTo(ages.getOrDefault(observation[1], 0));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.mindxinternbackend.dao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentNameIndexTest {
+
+    @Test
+    void foldRemovesVietnameseDiacritics() {
+        assertThat(StudentNameIndex.fold("  Hoàng   Ngọc Vương ")).isEqualTo("hoang ngoc vuong");
+        assertThat(StudentNameIndex.fold("Đặng Thị Ánh")).isEqualTo("dang thi anh");
+    }
+
+    @Test
+    void searchMatchesWithoutDiacriticsAndRanksExactFirst() {
+        StudentNameIndex index = new StudentNameIndex();
+        index.add(1, "Hoàng Ngọc Vương");
+        index.add(2, "Hoàng Nguyên Phúc");
+        index.add(3, "Nguyễn Thu Ngọc");
+        index.add(4, "Hoàng Ngọc Vương Anh");
+
+        assertThat(index.search("hoang ngoc vuong", 10)).containsExactly(1, 4);
+        assertThat(index.search("ngoc", 10)).containsExactly(3, 1, 4);
+        assertThat(index.search("phuc", 10)).containsExactly(2);
+
+        index.remove(1, "Hoàng Ngọc Vương");
+        assertThat(index.search("vuong", 10)).containsExactly(4);
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.mindxinternbackend.loadtest;
+
+import com.example.mindxinternbackend.dao.StudentDao;
+import com.example.mindxinternbackend.entity.Student;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test cho REST API student trên server nhúng (cổng ngẫu nhiên), không chạy trong mvn test thường.
+ *
+ * Chạy: mvn -Ploadtest test, tham số qua -D:
+ * - loadtest.concurrency: số client đồng thời, nhiều mức cách nhau dấu phẩy để tìm điểm bão hòa (mặc định 1,8,32)
+ * - loadtest.dataset: số student được nạp sẵn trước khi chạy (mặc định 10000)
+ * - loadtest.duration / loadtest.warmup: thời gian đo / làm nóng cho mỗi mức (mặc định PT20S / PT5S)
+ * - loadtest.mix: tỉ lệ thao tác, ví dụ get:70,page:10,search:5,create:5,update:5,delete:5
+ * - loadtest.max-error-rate: tỉ lệ lỗi tối đa trước khi test fail (mặc định 0.01)
+ *
+ * Mỗi client là một vòng lặp đóng (gửi, chờ response, gửi tiếp), latency đo bằng HdrHistogram.
+ * Ở vòng lặp đóng, khi server đã bão hòa client tự gửi chậm lại, nên p99/p999 ở mức đó thấp hơn
+ * thực tế (coordinated omission): điểm bão hòa là mức mà throughput ngừng tăng.
+ * Đọc/sửa chỉ chạm các student nạp sẵn, delete chỉ xóa student do load test tạo (id được cấp tăng dần
+ * sau tập nạp sẵn), nên mọi response không phải 2xx đều được tính là lỗi.
+ * Kết quả JSON: target/loadtest/student-api-{thời điểm}.json
+ */
+@Slf4j
+@Tag("loadtest")
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "OPENID_CLIENT_ID=loadtest",
+        "OPENID_CLIENT_SECRET=loadtest",
+        "cors.allowed-origins=http://localhost",
+        "management.server.port=-1"
+    }
+)
+class StudentApiLoadTest {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    enum Operation {
+        GET, PAGE, SEARCH, LIST, CREATE, UPDATE, DELETE
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private StudentDao studentDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** số student đã tạo qua API và id lớn nhất đã bị xóa, dùng chung cho mọi client */
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger deleteCursor = new AtomicInteger();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        int dataset = Integer.getInteger("loadtest.dataset", 10_000);
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT5S"));
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT20S"));
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix",
+            "get:70,page:10,search:5,create:5,update:5,delete:5"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+        List<Integer> concurrencyLevels = new ArrayList<>();
+        for (String level : System.getProperty("loadtest.concurrency", "1,8,32").split(",")) {
+            concurrencyLevels.add(Integer.parseInt(level.trim()));
+        }
+
+        int seededMaxId = seed(dataset);
+        deleteCursor.set(seededMaxId);
+
+        List<Map<String, Object>> stages = new ArrayList<>();
+        for (int concurrency : concurrencyLevels) {
+            runStage(concurrency, warmup, mix, seededMaxId);
+            Map<String, Object> stage = runStage(concurrency, duration, mix, seededMaxId);
+            stages.add(stage);
+            log.info("Load test stage: concurrency={} throughput={} req/s p50={}ms p99={}ms p999={}ms errors={}",
+                concurrency, String.format("%.0f", stage.get("throughputPerSecond")),
+                String.format("%.2f", latencyOf(stage, "p50Ms")), String.format("%.2f", latencyOf(stage, "p99Ms")),
+                String.format("%.2f", latencyOf(stage, "p999Ms")), String.format("%.4f", stage.get("errorRate")));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", LocalDateTime.now().toString());
+        report.put("dataset", dataset);
+        report.put("warmupSeconds", warmup.toSeconds());
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("mix", mix);
+        report.put("stages", stages);
+
+        Path output = Path.of("target", "loadtest",
+            "student-api-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        log.info("Load test report written to {}", output.toAbsolutePath());
+
+        for (Map<String, Object> stage : stages) {
+            assertThat((long) stage.get("requests")).isPositive();
+            assertThat((double) stage.get("errorRate")).isLessThanOrEqualTo(maxErrorRate);
+        }
+    }
+
+    /**
+     * Nạp dữ liệu thẳng qua DAO cho nhanh, trả về id lớn nhất của tập dữ liệu nạp sẵn
+     */
+    private int seed(int dataset) {
+        SplittableRandom random = new SplittableRandom(42);
+        int maxId = 0;
+        for (int i = 0; i < dataset; i++) {
+            Student student = randomStudent(random);
+            studentDao.create(student);
+            maxId = student.getId();
+        }
+        return maxId;
+    }
+
+    private Map<String, Object> runStage(int concurrency, Duration duration, Map<Operation, Integer> mix,
+                                         int seededMaxId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ClientResult>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                long seed = 1000L * concurrency + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return runClient(new SplittableRandom(seed), duration, mix, seededMaxId);
+                }));
+            }
+
+            long started = System.nanoTime();
+            start.countDown();
+            Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+            Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+            for (Future<ClientResult> future : futures) {
+                ClientResult result = future.get();
+                result.latencies.forEach((operation, histogram) ->
+                    latencies.computeIfAbsent(operation, key -> newHistogram()).add(histogram));
+                result.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+            }
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+            return stageReport(concurrency, elapsedSeconds, latencies, errors);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class ClientResult {
+        final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+    }
+
+    private ClientResult runClient(SplittableRandom random, Duration duration, Map<Operation, Integer> mix,
+                                   int seededMaxId) {
+        ClientResult result = new ClientResult();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(mix, totalWeight, random);
+            int deleteId = 0;
+            if (operation == Operation.DELETE) {
+                deleteId = nextDeleteId(seededMaxId);
+                if (deleteId < 0) {
+                    operation = Operation.CREATE;
+                }
+            }
+
+            long begin = System.nanoTime();
+            boolean success;
+            try {
+                success = execute(operation, random, seededMaxId, deleteId);
+            } catch (Exception e) {
+                success = false;
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+
+            result.latencies.computeIfAbsent(operation, key -> newHistogram())
+                .recordValue(Math.min(Math.max(micros, 1), MAX_LATENCY_MICROS));
+            if (!success) {
+                result.errors.merge(operation, 1L, Long::sum);
+            }
+        }
+        return result;
+    }
+
+    private boolean execute(Operation operation, SplittableRandom random, int seededMaxId,
+                            int deleteId) throws Exception {
+        int seededId = 1 + random.nextInt(seededMaxId);
+        switch (operation) {
+            case GET:
+                return send(get("/api/students/" + seededId)).statusCode() == 200;
+            case PAGE:
+                return send(get("/api/students?limit=50&after=" + random.nextInt(seededMaxId))).statusCode() == 200;
+            case SEARCH:
+                return send(get("/api/students/search?q=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]
+                    + "&limit=20")).statusCode() == 200;
+            case LIST:
+                return send(get("/api/students")).statusCode() == 200;
+            case CREATE:
+                if (send(json("POST", "/api/students", randomStudent(random))).statusCode() != 201) {
+                    return false;
+                }
+                created.incrementAndGet();
+                return true;
+            case UPDATE:
+                return send(json("PUT", "/api/students/" + seededId, randomStudent(random))).statusCode() == 204;
+            case DELETE:
+                return send(HttpRequest.newBuilder(uri("/api/students/" + deleteId)).DELETE().build()).statusCode() == 204;
+            default:
+                throw new IllegalStateException("Unknown operation: " + operation);
+        }
+    }
+
+    /**
+     * POST không trả về id, nhưng id được cấp tăng dần nên student thứ k do load test tạo có id
+     * seededMaxId + k. Trả về -1 nếu chưa có student nào để xóa
+     */
+    private int nextDeleteId(int seededMaxId) {
+        while (true) {
+            int current = deleteCursor.get();
+            if (current >= seededMaxId + created.get()) {
+                return -1;
+            }
+            if (deleteCursor.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private static final String[] SEARCH_TERMS = {"nguyen", "hoang%20ngoc", "tran%20thi", "le%20van", "phuc", "mai"};
+
+    private static final String[] FAMILY_NAMES = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Phan", "Vũ", "Đặng"};
+    private static final String[] MIDDLE_NAMES = {"Văn", "Thị", "Ngọc", "Minh", "Thu", "Hữu", "Đức"};
+    private static final String[] GIVEN_NAMES = {"An", "Bình", "Chi", "Dũng", "Hà", "Linh", "Mai", "Nam", "Phúc", "Vương"};
+
+    private static Student randomStudent(SplittableRandom random) {
+        String name = FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)] + " "
+            + MIDDLE_NAMES[random.nextInt(MIDDLE_NAMES.length)] + " "
+            + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+        return new Student(null, name, 18 + random.nextInt(33),
+            random.nextBoolean() ? Student.Gender.NAM : Student.Gender.NU);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest json(String method, String path, Student body) throws Exception {
+        return HttpRequest.newBuilder(uri(path))
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+            .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(MAX_LATENCY_MICROS, 3);
+    }
+
+    private static Operation pick(Map<Operation, Integer> mix, int totalWeight, SplittableRandom random) {
+        int value = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix không có thao tác nào: " + mix);
+        }
+        return weights;
+    }
+
+    private static Map<String, Object> stageReport(int concurrency, double elapsedSeconds,
+                                                   Map<Operation, Histogram> latencies, Map<Operation, Long> errors) {
+        Histogram total = newHistogram();
+        latencies.values().forEach(total::add);
+        long totalErrors = errors.values().stream().mapToLong(Long::longValue).sum();
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        latencies.forEach((operation, histogram) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("requests", histogram.getTotalCount());
+            entry.put("errors", errors.getOrDefault(operation, 0L));
+            entry.put("latency", latencySummary(histogram));
+            operations.put(operation.name().toLowerCase(), entry);
+        });
+
+        Map<String, Object> stage = new LinkedHashMap<>();
+        stage.put("concurrency", concurrency);
+        stage.put("elapsedSeconds", elapsedSeconds);
+        stage.put("requests", total.getTotalCount());
+        stage.put("errors", totalErrors);
+        stage.put("errorRate", total.getTotalCount() == 0 ? 0.0 : (double) totalErrors / total.getTotalCount());
+        stage.put("throughputPerSecond", total.getTotalCount() / elapsedSeconds);
+        stage.put("latency", latencySummary(total));
+        stage.put("operations", operations);
+        return stage;
+    }
+
+    private static Map<String, Object> latencySummary(Histogram histogram) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("meanMs", histogram.getMean() / 1000.0);
+        latency.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+        latency.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+        latency.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+        latency.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return latency;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double latencyOf(Map<String, Object> stage, String key) {
+        return (double) ((Map<String, Object>) stage.get("latency")).get(key);
+    }
+}
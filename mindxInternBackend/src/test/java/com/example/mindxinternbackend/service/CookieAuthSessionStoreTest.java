@@ -0,0 +1,110 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dto.AuthResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CookieAuthSessionStoreTest {
+
+    private static final SecretKey OLD_KEY = new SecretKeySpec(new byte[32], "AES");
+    private static final SecretKey NEW_KEY = new SecretKeySpec(new byte[]{
+        1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}, "AES");
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final AuthResponse.UserInfo USER =
+        new AuthResponse.UserInfo("sub-1", "user@mindx.edu.vn", "Người dùng", "https://img");
+
+    @Test
+    void anyReplicaWithSameKeysReadsTheSession() {
+        String cookie = signIn(store(NOW, Map.of("k1", OLD_KEY)));
+
+        CookieAuthSessionStore otherReplica = store(NOW.plusSeconds(60), Map.of("k1", OLD_KEY));
+        MockHttpServletRequest request = requestWith(cookie);
+        assertThat(otherReplica.currentUser(request, new MockHttpServletResponse()))
+            .usingRecursiveComparison().isEqualTo(USER);
+        assertThat(otherReplica.idToken(request)).isEqualTo("id.token.value");
+    }
+
+    @Test
+    void rejectsTamperedExpiredAndUnknownKeyCookies() {
+        String cookie = signIn(store(NOW, Map.of("k1", OLD_KEY)));
+        CookieAuthSessionStore reader = store(NOW, Map.of("k1", OLD_KEY));
+
+        int middle = cookie.length() / 2;
+        char flipped = cookie.charAt(middle) == 'A' ? 'B' : 'A';
+        String tampered = cookie.substring(0, middle) + flipped + cookie.substring(middle + 1);
+        assertThat(reader.currentUser(requestWith(tampered), null)).isNull();
+        assertThat(reader.currentUser(requestWith(cookie.replace("v1.k1.", "v1.k2.")), null)).isNull();
+        assertThat(reader.currentUser(requestWith("garbage"), null)).isNull();
+
+        CookieAuthSessionStore later = store(NOW.plus(Duration.ofHours(9)), Map.of("k1", OLD_KEY));
+        assertThat(later.currentUser(requestWith(cookie), null)).isNull();
+
+        CookieAuthSessionStore otherKeys = store(NOW, Map.of("k2", NEW_KEY));
+        assertThat(otherKeys.currentUser(requestWith(cookie), null)).isNull();
+    }
+
+    @Test
+    void reissuesCookiesSealedWithARetiredKey() {
+        String oldCookie = signIn(store(NOW, Map.of("k1", OLD_KEY)));
+
+        Map<String, SecretKey> rotated = new LinkedHashMap<>();
+        rotated.put("k2", NEW_KEY);
+        rotated.put("k1", OLD_KEY);
+        CookieAuthSessionStore afterRotation = store(NOW.plusSeconds(60), rotated);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(afterRotation.currentUser(requestWith(oldCookie), response)).isNotNull();
+
+        String reissued = cookieValue(response);
+        assertThat(reissued).startsWith("v1.k2.");
+        assertThat(store(NOW.plusSeconds(120), Map.of("k2", NEW_KEY)).currentUser(requestWith(reissued), null))
+            .usingRecursiveComparison().isEqualTo(USER);
+    }
+
+    @Test
+    void signOutExpiresTheCookie() {
+        CookieAuthSessionStore store = store(NOW, Map.of("k1", OLD_KEY));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(store.signOut(requestWith(signIn(store)), response)).usingRecursiveComparison().isEqualTo(USER);
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).contains("Max-Age=0");
+    }
+
+    private static String signIn(CookieAuthSessionStore store) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        store.signIn(new MockHttpServletRequest(), response, USER, "id.token.value");
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertThat(setCookie).contains("HttpOnly", "Secure", "SameSite=None");
+        return cookieValue(response);
+    }
+
+    private static String cookieValue(MockHttpServletResponse response) {
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        return setCookie.substring("MINDX_SESSION=".length(), setCookie.indexOf(';'));
+    }
+
+    private static MockHttpServletRequest requestWith(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("MINDX_SESSION", value));
+        return request;
+    }
+
+    private static CookieAuthSessionStore store(Instant now, Map<String, SecretKey> keys) {
+        return new CookieAuthSessionStore("MINDX_SESSION", keys, Duration.ofHours(8), true, "None",
+            new ObjectMapper(), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.mindxinternbackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CookieLoginTransactionStoreTest {
+
+    private static final String REDIRECT_URI = "https://onboarding.mindx.edu.vn/auth/callback";
+    private static final Map<String, SecretKey> KEYS = Map.of("k1", new SecretKeySpec(new byte[32], "AES"));
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void anyReplicaWithSameKeysCompletesTheCallback() {
+        MockHttpServletResponse loginUrl = new MockHttpServletResponse();
+        LoginTransactionStore.Transaction started = store(NOW)
+            .begin(new MockHttpServletRequest(), loginUrl, REDIRECT_URI, null, "pushed-nonce");
+        String setCookie = loginUrl.getHeader(HttpHeaders.SET_COOKIE);
+        assertThat(setCookie).startsWith("MINDX_LOGIN_").contains("Path=/api/auth/callback", "HttpOnly", "Secure");
+
+        MockHttpServletResponse callback = new MockHttpServletResponse();
+        LoginTransactionStore.Transaction consumed = store(NOW.plusSeconds(30))
+            .consume(browserWith(loginUrl), callback, started.state());
+
+        assertThat(consumed).isEqualTo(started);
+        assertThat(consumed.nonce()).isEqualTo("pushed-nonce");
+        assertThat(callback.getHeader(HttpHeaders.SET_COOKIE)).contains("Max-Age=0");
+    }
+
+    @Test
+    void rejectsOtherBrowsersWrongStateTamperingAndExpiry() {
+        MockHttpServletResponse loginUrl = new MockHttpServletResponse();
+        String state = store(NOW).begin(new MockHttpServletRequest(), loginUrl, REDIRECT_URI, "client-state", null)
+            .state();
+        CookieLoginTransactionStore replica = store(NOW);
+
+        assertThat(replica.browserBinding(new MockHttpServletRequest(), state)).isNull();
+        assertThat(replica.browserBinding(browserWith(loginUrl), state))
+            .isEqualTo(browserWith(loginUrl).getCookies()[0].getValue());
+        assertThat(replica.browserBinding(browserWith(loginUrl), "other-state")).isNull();
+        assertThat(replica.consume(new MockHttpServletRequest(), null, state)).isNull();
+        assertThat(replica.consume(browserWith(loginUrl), null, "other-state")).isNull();
+        assertThat(replica.consume(browserWith(loginUrl), null, null)).isNull();
+
+        Cookie cookie = browserWith(loginUrl).getCookies()[0];
+        MockHttpServletRequest tampered = new MockHttpServletRequest();
+        tampered.setCookies(new Cookie(cookie.getName(), cookie.getValue().replace("v1.k1.", "v1.k1.A")));
+        assertThat(replica.consume(tampered, null, state)).isNull();
+
+        assertThat(store(NOW.plus(Duration.ofMinutes(11))).consume(browserWith(loginUrl), null, state)).isNull();
+    }
+
+    @Test
+    void cookieIsConsumedExactlyOnceUntilItExpires() {
+        AtomicReference<Instant> now = new AtomicReference<>(NOW);
+        CookieLoginTransactionStore store = store(now);
+        MockHttpServletResponse loginUrl = new MockHttpServletResponse();
+        String state = store.begin(new MockHttpServletRequest(), loginUrl, REDIRECT_URI, null, null).state();
+
+        assertThat(store.consume(browserWith(loginUrl), null, state)).isNotNull();
+        // Cookie còn hạn nhưng đã dùng: replay (hoặc request song song) bị từ chối
+        now.set(NOW.plusSeconds(60));
+        assertThat(store.consume(browserWith(loginUrl), null, state)).isNull();
+
+        // State đã dùng được quên khi cookie hết hạn, lúc đó chính cookie đã bị từ chối
+        now.set(NOW.plus(Duration.ofMinutes(11)));
+        assertThat(store.consume(browserWith(loginUrl), null, state)).isNull();
+        MockHttpServletResponse next = new MockHttpServletResponse();
+        String nextState = store.begin(new MockHttpServletRequest(), next, REDIRECT_URI, null, null).state();
+        assertThat(store.consume(browserWith(next), null, nextState)).isNotNull();
+        assertThat(ReflectionTestUtils.getField(store, "usedStates")).asInstanceOf(InstanceOfAssertFactories.MAP)
+            .hasSize(1);
+    }
+
+    @Test
+    void sessionCookieSealedWithSameKeysIsNotALoginCookie() {
+        MockHttpServletResponse loginUrl = new MockHttpServletResponse();
+        String state = store(NOW).begin(new MockHttpServletRequest(), loginUrl, REDIRECT_URI, null, null).state();
+        String loginCookieName = browserWith(loginUrl).getCookies()[0].getName();
+
+        String sessionCookie = new SealedCookieCodec(KEYS, "").seal(("{\"s\":\"" + state + "\",\"n\":\"x\","
+            + "\"r\":\"" + REDIRECT_URI + "\",\"x\":" + NOW.plusSeconds(600).toEpochMilli() + "}").getBytes());
+        MockHttpServletRequest forged = new MockHttpServletRequest();
+        forged.setCookies(new Cookie(loginCookieName, sessionCookie));
+
+        assertThat(store(NOW).consume(forged, null, state)).isNull();
+    }
+
+    private static MockHttpServletRequest browserWith(MockHttpServletResponse response) {
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        int separator = setCookie.indexOf('=');
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(setCookie.substring(0, separator),
+            setCookie.substring(separator + 1, setCookie.indexOf(';'))));
+        return request;
+    }
+
+    private static CookieLoginTransactionStore store(Instant now) {
+        return store(new AtomicReference<>(now));
+    }
+
+    private static CookieLoginTransactionStore store(AtomicReference<Instant> now) {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+        return new CookieLoginTransactionStore("MINDX_LOGIN_", KEYS, Duration.ofMinutes(10), 100, true, "None",
+            new ObjectMapper(), clock, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dto.AuthResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpSessionAuthStoreTest {
+
+    private final HttpSessionAuthStore store = new HttpSessionAuthStore();
+
+    @Test
+    void signInIssuesNewSessionIdForExistingSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        String planted = request.getSession().getId();
+
+        store.signIn(request, new MockHttpServletResponse(),
+            new AuthResponse.UserInfo("sub-1", "user@mindx.edu.vn", "Người dùng", "https://img"), "id-token");
+
+        assertThat(request.getSession(false).getId()).isNotEqualTo(planted);
+        assertThat(store.currentUser(request, new MockHttpServletResponse()).getUid()).isEqualTo("sub-1");
+        assertThat(store.idToken(request)).isEqualTo("id-token");
+    }
+}
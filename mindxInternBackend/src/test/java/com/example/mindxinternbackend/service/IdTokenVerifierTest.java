@@ -0,0 +1,87 @@
+package com.example.mindxinternbackend.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdTokenVerifierTest {
+
+    private static final String ISSUER = "https://idp.test";
+    private static final String CLIENT_ID = "mindx-onboarding";
+
+    private static RSAKey signingKey;
+    private static RSAKey unknownKey;
+    private static IdTokenVerifier verifier;
+
+    @BeforeAll
+    static void setUp() throws JOSEException {
+        signingKey = new RSAKeyGenerator(2048).keyID("k1").generate();
+        unknownKey = new RSAKeyGenerator(2048).keyID("k2").generate();
+        verifier = new IdTokenVerifier(new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK())),
+            ISSUER, CLIENT_ID, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void acceptsValidTokenAndExposesProfileClaims() throws Exception {
+        JWTClaimsSet claims = verifier.verify(token(signingKey, builder -> { }), "n-1");
+
+        assertThat(claims.getSubject()).isEqualTo("user-1");
+        assertThat(claims.getStringClaim("email")).isEqualTo("user@mindx.edu.vn");
+        assertThat(verifier.verify(token(signingKey, builder -> { }), null).getSubject()).isEqualTo("user-1");
+    }
+
+    @Test
+    void rejectsBadSignatureIssuerAudienceExpiryAndNonce() throws Exception {
+        Instant past = Instant.now().minus(Duration.ofHours(1));
+
+        assertRejected(token(unknownKey, builder -> { }), "n-1");
+        assertRejected(token(signingKey, builder -> builder.issuer("https://evil.test")), "n-1");
+        assertRejected(token(signingKey, builder -> builder.audience("other-client")), "n-1");
+        assertRejected(token(signingKey, builder -> builder.audience(List.of(CLIENT_ID, "other-client"))), "n-1");
+        assertRejected(token(signingKey, builder -> builder.expirationTime(Date.from(past))), "n-1");
+        assertRejected(token(signingKey, builder -> { }), "n-2");
+        assertRejected("not-a-jwt", null);
+    }
+
+    private static void assertRejected(String idToken, String nonce) {
+        assertThatThrownBy(() -> verifier.verify(idToken, nonce))
+            .isInstanceOf(IdTokenVerifier.InvalidIdTokenException.class);
+    }
+
+    private static String token(RSAKey key, Consumer<JWTClaimsSet.Builder> customizer) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder()
+            .issuer(ISSUER)
+            .audience(CLIENT_ID)
+            .subject("user-1")
+            .issueTime(Date.from(now))
+            .expirationTime(Date.from(now.plus(Duration.ofMinutes(5))))
+            .claim("nonce", "n-1")
+            .claim("email", "user@mindx.edu.vn")
+            .claim("name", "Người dùng");
+        customizer.accept(builder);
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+            builder.build());
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
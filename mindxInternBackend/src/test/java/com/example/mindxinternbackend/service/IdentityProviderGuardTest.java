@@ -0,0 +1,165 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.exception.IdentityProviderUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chạy IdentityProviderGuard với một IdP giả (HttpServer của JDK) trả lời theo status/độ trễ tùy chỉnh
+ */
+class IdentityProviderGuardTest {
+
+    private HttpServer stubIdp;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private String baseUrl;
+
+    @BeforeEach
+    void startStubIdp() throws IOException {
+        stubIdp = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubIdp.setExecutor(Executors.newCachedThreadPool());
+        stubIdp.createContext("/token", exchange -> {
+            hits.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"access_token\":\"t\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stubIdp.start();
+        baseUrl = "http://127.0.0.1:" + stubIdp.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStubIdp() {
+        release.countDown();
+        stubIdp.stop(0);
+    }
+
+    @Test
+    void opensOnFailureRateThenClosesAfterHalfOpenProbe() {
+        AtomicLong clock = new AtomicLong();
+        IdentityProviderGuard guard = new IdentityProviderGuard(4, Duration.ofMillis(100), Duration.ofSeconds(2),
+            10, 4, 50, Duration.ofSeconds(30), 1, new SimpleMeterRegistry(), clock::get);
+        RestTemplate restTemplate = restTemplate(guard);
+
+        status.set(503);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> callToken(guard, restTemplate)).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(guard.state()).isEqualTo(IdentityProviderGuard.State.OPEN);
+
+        // Mạch mở: từ chối ngay, không request nào tới IdP
+        assertThatThrownBy(() -> callToken(guard, restTemplate))
+            .isInstanceOf(IdentityProviderUnavailableException.class);
+        assertThat(guard.isCallPermitted()).isFalse();
+        assertThat(hits.get()).isEqualTo(4);
+
+        // Hết open-duration: một probe được đi qua, IdP đã khỏe nên mạch đóng lại
+        status.set(200);
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(guard.isCallPermitted()).isTrue();
+        assertThat(callToken(guard, restTemplate)).contains("access_token");
+        assertThat(guard.state()).isEqualTo(IdentityProviderGuard.State.CLOSED);
+        assertThat(hits.get()).isEqualTo(5);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenCircuit() {
+        IdentityProviderGuard guard = new IdentityProviderGuard(4, Duration.ofMillis(100), Duration.ofSeconds(2),
+            10, 2, 50, Duration.ofSeconds(30), 1, new SimpleMeterRegistry());
+        RestTemplate restTemplate = restTemplate(guard);
+
+        status.set(400);
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> callToken(guard, restTemplate)).isInstanceOf(HttpClientErrorException.class);
+        }
+        assertThat(guard.state()).isEqualTo(IdentityProviderGuard.State.CLOSED);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondLimit() throws Exception {
+        IdentityProviderGuard guard = new IdentityProviderGuard(1, Duration.ofMillis(50), Duration.ofSeconds(5),
+            10, 4, 50, Duration.ofSeconds(30), 1, new SimpleMeterRegistry());
+        RestTemplate restTemplate = restTemplate(guard);
+
+        release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> callToken(guard, restTemplate));
+        while (hits.get() == 0) {
+            Thread.sleep(5);
+        }
+
+        assertThatThrownBy(() -> callToken(guard, restTemplate))
+            .isInstanceOf(IdentityProviderUnavailableException.class)
+            .hasMessageContaining("too many concurrent calls");
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).contains("access_token");
+        assertThat(hits.get()).isEqualTo(1);
+    }
+
+    @Test
+    void deadlineBoundsSlowCallsAndSkipsRemainingCalls() {
+        IdentityProviderGuard guard = new IdentityProviderGuard(4, Duration.ofMillis(100), Duration.ofSeconds(5),
+            10, 4, 50, Duration.ofSeconds(30), 1, new SimpleMeterRegistry());
+        RestTemplate restTemplate = restTemplate(guard);
+
+        release = new CountDownLatch(1);
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> guard.withDeadline(Duration.ofMillis(300), () -> {
+            try {
+                callToken(guard, restTemplate);
+            } catch (ResourceAccessException timeout) {
+                // Lời gọi thứ hai trong cùng thao tác không còn ngân sách
+                return callToken(guard, restTemplate);
+            }
+            return null;
+        })).isInstanceOf(IdentityProviderUnavailableException.class)
+            .hasMessageContaining("deadline exceeded");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(hits.get()).isEqualTo(1);
+        assertThat(guard.remainingBudget()).isNull();
+    }
+
+    private String callToken(IdentityProviderGuard guard, RestTemplate restTemplate) {
+        return guard.call("token", () -> restTemplate.getForObject(baseUrl + "/token", String.class));
+    }
+
+    private static RestTemplate restTemplate(IdentityProviderGuard guard) {
+        HttpComponentsClientHttpRequestFactory requestFactory =
+            new HttpComponentsClientHttpRequestFactory(HttpClients.custom().disableAutomaticRetries().build());
+        requestFactory.setHttpContextFactory(
+            (method, uri) -> guard.httpContext(Duration.ofSeconds(1), Duration.ofSeconds(5)));
+        return new RestTemplate(requestFactory);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mindxinternbackend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryLoginTransactionStoreTest {
+
+    private static final String REDIRECT_URI = "https://onboarding.mindx.edu.vn/auth/callback";
+
+    @Test
+    void stateIsConsumedExactlyOnce() {
+        InMemoryLoginTransactionStore store = store(100, Duration.ofMinutes(10));
+        LoginTransactionStore.Transaction transaction = store.begin(REDIRECT_URI, null, null);
+
+        assertThat(transaction.state()).hasSize(43).isNotEqualTo(transaction.nonce());
+        assertThat(store.consume(transaction.state()))
+            .extracting(LoginTransactionStore.Transaction::nonce, LoginTransactionStore.Transaction::redirectUri)
+            .containsExactly(transaction.nonce(), REDIRECT_URI);
+        assertThat(store.consume(transaction.state())).isNull();
+        assertThat(store.consume("forged")).isNull();
+        assertThat(store.consume(null)).isNull();
+    }
+
+    @Test
+    void clientStateIsKeptButCannotBeReusedWhilePending() {
+        InMemoryLoginTransactionStore store = store(100, Duration.ofMinutes(10));
+
+        assertThat(store.begin(REDIRECT_URI, "client-state", null).state()).isEqualTo("client-state");
+        assertThat(store.begin(REDIRECT_URI, "client-state", null)).isNull();
+        assertThat(store.consume("client-state")).isNotNull();
+        assertThat(store.begin(REDIRECT_URI, "client-state", null)).isNotNull();
+    }
+
+    @Test
+    void expiredAndOverflowingTransactionsAreDropped() {
+        InMemoryLoginTransactionStore expiring = store(100, Duration.ZERO);
+        assertThat(expiring.consume(expiring.begin(REDIRECT_URI, null, null).state())).isNull();
+
+        InMemoryLoginTransactionStore bounded = store(3, Duration.ofMinutes(10));
+        String oldest = bounded.begin(REDIRECT_URI, null, null).state();
+        IntStream.range(0, 3).forEach(i -> bounded.begin(REDIRECT_URI, null, null));
+        assertThat(bounded.consume(oldest)).isNull();
+    }
+
+    @Test
+    void concurrentLoginsGetDistinctStates() {
+        InMemoryLoginTransactionStore store = store(100_000, Duration.ofMinutes(10));
+        Set<String> states = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 10_000).parallel()
+            .forEach(i -> states.add(store.begin(REDIRECT_URI, null, null).state()));
+
+        assertThat(states).hasSize(10_000);
+        assertThat(states).allSatisfy(state -> assertThat(store.consume(state)).isNotNull());
+    }
+
+    private static InMemoryLoginTransactionStore store(int maxTransactions, Duration ttl) {
+        return new InMemoryLoginTransactionStore(maxTransactions, ttl, Clock.systemUTC(), new SimpleMeterRegistry());
+    }
+}
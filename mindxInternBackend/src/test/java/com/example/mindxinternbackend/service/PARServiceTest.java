@@ -0,0 +1,87 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.config.OpenIDEndpoints;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class PARServiceTest {
+
+    private static final String REDIRECT_URI = "https://onboarding.mindx.edu.vn/auth/callback";
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer idp = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+    private PARService parService;
+
+    @BeforeEach
+    void setUp() {
+        IdentityProviderGuard guard = new IdentityProviderGuard(4, Duration.ofMillis(100), Duration.ofSeconds(2),
+            10, 4, 50, Duration.ofSeconds(30), 1, new SimpleMeterRegistry());
+        parService = new PARService(restTemplate, guard, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(parService, "clientId", "client");
+        ReflectionTestUtils.setField(parService, "clientSecret", "secret");
+        ReflectionTestUtils.setField(parService, "parDeadline", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(parService, "poolEnabled", true);
+        ReflectionTestUtils.setField(parService, "poolRedirectUris", List.of(REDIRECT_URI));
+        ReflectionTestUtils.setField(parService, "poolMinSize", 2);
+        ReflectionTestUtils.setField(parService, "poolMaxSize", 50);
+        ReflectionTestUtils.setField(parService, "poolLookahead", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(parService, "poolRefillInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(parService, "maxPushesPerRefill", 10);
+        ReflectionTestUtils.setField(parService, "poolExpiryMargin", Duration.ofSeconds(15));
+        // Chu kỳ refill 1 giờ: thread nền không chạy trong lúc test, test tự gọi refillPools()
+        parService.startPool();
+
+        idp.expect(ExpectedCount.times(2), requestTo(OpenIDEndpoints.PUSHED_AUTHORIZATION_REQUEST_ENDPOINT))
+            .andExpect(method(HttpMethod.POST))
+            .andRespond(withSuccess("{\"request_uri\":\"urn:par:1\",\"expires_in\":60}", MediaType.APPLICATION_JSON));
+    }
+
+    @AfterEach
+    void tearDown() {
+        parService.stopPool();
+    }
+
+    @Test
+    void servesPrePushedRequestsAndOnlyMissesWhenEmpty() {
+        parService.refillPools();
+
+        PARService.PushedRequest first = parService.takePooled(REDIRECT_URI);
+        PARService.PushedRequest second = parService.takePooled(REDIRECT_URI);
+        assertThat(first.requestUri()).isEqualTo("urn:par:1");
+        assertThat(first.state()).isNotEqualTo(second.state());
+        assertThat(first.nonce()).isNotEqualTo(second.nonce());
+        assertThat(parService.takePooled(REDIRECT_URI)).isNull();
+        assertThat(parService.takePooled("https://other.example/callback")).isNull();
+        idp.verify();
+    }
+
+    @Test
+    void stopsRefillingWhenTheIdentityProviderFails() {
+        idp.reset();
+        idp.expect(ExpectedCount.once(), requestTo(OpenIDEndpoints.PUSHED_AUTHORIZATION_REQUEST_ENDPOINT))
+            .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        parService.refillPools();
+
+        assertThat(parService.takePooled(REDIRECT_URI)).isNull();
+        idp.verify();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.mindxinternbackend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentDuplicatesShareOneExecution() throws Exception {
+        SingleFlight<String, String> flight = singleFlight(Duration.ofSeconds(30));
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("code", () -> {
+                runs.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "user-1";
+            }), executor);
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<CompletableFuture<String>> duplicates = IntStream.range(0, 3)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> flight.execute("code", () -> {
+                    runs.incrementAndGet();
+                    return "other";
+                }), executor))
+                .toList();
+            // Chỉ thả leader khi cả 3 bản trùng đã nhập vào lượt đang chạy
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("test.flights", "outcome", "shared").count() < 3
+                && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("user-1");
+            for (CompletableFuture<String> duplicate : duplicates) {
+                assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo("user-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Kết quả còn được giữ sau khi xong: retry muộn cùng key cũng không chạy lại
+        assertThat(flight.execute("code", () -> "late")).isEqualTo("user-1");
+        assertThat(runs).hasValue(1);
+        assertThat(meterRegistry.counter("test.flights", "outcome", "shared").count()).isEqualTo(4);
+    }
+
+    @Test
+    void failuresAreSharedAndResultsExpire() {
+        SingleFlight<String, String> flight = singleFlight(Duration.ofSeconds(30));
+        assertThatThrownBy(() -> flight.execute("code", () -> {
+            throw new IllegalStateException("idp down");
+        })).hasMessage("idp down");
+        assertThatThrownBy(() -> flight.execute("code", () -> "retry")).hasMessage("idp down");
+        assertThat(flight.execute("other-code", () -> "user-2")).isEqualTo("user-2");
+
+        SingleFlight<String, String> expiring = singleFlight(Duration.ZERO);
+        assertThat(expiring.execute("code", () -> "first")).isEqualTo("first");
+        assertThat(expiring.execute("code", () -> "second")).isEqualTo("second");
+    }
+
+    private SingleFlight<String, String> singleFlight(Duration resultTtl) {
+        return new SingleFlight<>(resultTtl, 100, Clock.systemUTC(), meterRegistry, "test.flights");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dao.StudentChangeListeners;
+import com.example.mindxinternbackend.dto.StudentChangeEvent;
+import com.example.mindxinternbackend.entity.Student;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentChangeFeedTest {
+
+    private static final int HISTORY_SIZE = 8;
+    private static final int CLIENT_BUFFER = 4;
+
+    private final ManualExecutor senders = new ManualExecutor();
+    private StudentChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new StudentChangeFeed(new StudentChangeListeners()) {
+            @Override
+            SseEmitter newEmitter() {
+                return new RecordingEmitter();
+            }
+        };
+        ReflectionTestUtils.setField(feed, "historySize", HISTORY_SIZE);
+        ReflectionTestUtils.setField(feed, "clientBuffer", CLIENT_BUFFER);
+        ReflectionTestUtils.setField(feed, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(feed, "heartbeatInterval", Duration.ofHours(1));
+        feed.start();
+
+        // Dispatcher chạy ngay trên thread writer, sender chỉ chạy khi test gọi senders.runAll()
+        ((ExecutorService) ReflectionTestUtils.getField(feed, "senders")).shutdown();
+        ((ExecutorService) ReflectionTestUtils.getField(feed, "dispatcher")).shutdown();
+        ReflectionTestUtils.setField(feed, "senders", senders);
+        ReflectionTestUtils.setField(feed, "dispatcher", new ManualExecutor(true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    void replaysEventsAfterLastEventId() {
+        RecordingEmitter live = (RecordingEmitter) feed.subscribe(null);
+        publish(CLIENT_BUFFER);
+        senders.runAll();
+        List<String> ids = live.eventIds();
+        assertThat(ids).hasSize(CLIENT_BUFFER);
+
+        RecordingEmitter resumed = (RecordingEmitter) feed.subscribe(Long.parseLong(ids.get(1)));
+        senders.runAll();
+
+        assertThat(resumed.eventIds()).containsExactlyElementsOf(ids.subList(2, CLIENT_BUFFER));
+        assertThat(resumed.messages).noneMatch(message -> message.contains("event:reset"));
+    }
+
+    @Test
+    void closesClientThatFallsBehindClientBuffer() {
+        RecordingEmitter keepingUp = (RecordingEmitter) feed.subscribe(null);
+        publish(CLIENT_BUFFER);
+        senders.runAll();
+        assertThat(keepingUp.eventIds()).hasSize(CLIENT_BUFFER);
+        assertThat(keepingUp.completed).isFalse();
+
+        // Sender không chạy kịp trong lúc writer ghi thêm clientBuffer + 1 event: đóng kết nối, không gửi gì
+        keepingUp.messages.clear();
+        publish(CLIENT_BUFFER + 1);
+        senders.runAll();
+
+        assertThat(keepingUp.completed).isTrue();
+        assertThat(keepingUp.messages).isEmpty();
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    @Test
+    void sendsResetWhenLastEventIdIsOutOfHistory() {
+        RecordingEmitter live = (RecordingEmitter) feed.subscribe(null);
+        publish(1);
+        senders.runAll();
+        long first = Long.parseLong(live.eventIds().get(0));
+        // live theo kịp từng event, còn event đầu tiên thì đã bị ghi đè khỏi ring buffer
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            publish(1);
+            senders.runAll();
+        }
+        String latest = live.eventIds().get(live.eventIds().size() - 1);
+
+        RecordingEmitter stale = (RecordingEmitter) feed.subscribe(first);
+        RecordingEmitter fromFuture = (RecordingEmitter) feed.subscribe(Long.parseLong(latest) + 100);
+        senders.runAll();
+        publish(1);
+        senders.runAll();
+
+        for (RecordingEmitter emitter : List.of(stale, fromFuture)) {
+            assertThat(emitter.messages.get(0)).isEqualTo("event:reset\nid:" + latest + "\ndata:reset\n\n");
+            assertThat(emitter.eventIds()).containsExactly(String.valueOf(Long.parseLong(latest) + 1));
+        }
+    }
+
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            feed.onChange(StudentChangeEvent.Type.UPDATED, 1, new Student(1, "A", 20, Student.Gender.NAM));
+        }
+    }
+
+    /**
+     * Ghi lại các message đã gửi dưới dạng text SSE, event JSON được thay bằng {sequence}
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> messages = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                Object data = part.getData();
+                text.append(data instanceof StudentChangeEvent event ? "{" + event.getSequence() + "}" : data);
+            }
+            messages.add(text.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<String> eventIds() {
+            List<String> ids = new ArrayList<>();
+            for (String message : messages) {
+                if (message.startsWith("id:")) {
+                    ids.add(message.substring(3, message.indexOf('\n')));
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Executor chạy task ngay (direct) hoặc giữ lại tới khi runAll()
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+        private final boolean direct;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        ManualExecutor() {
+            this(false);
+        }
+
+        ManualExecutor(boolean direct) {
+            this.direct = direct;
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (direct) {
+                command.run();
+            } else {
+                tasks.add(command);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dao.ChangePublishingStudentDao;
+import com.example.mindxinternbackend.dao.StudentChangeListeners;
+import com.example.mindxinternbackend.dao.StudentDaoImpl;
+import com.example.mindxinternbackend.entity.Student;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StudentResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StudentService studentService;
+    private StudentResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        StudentChangeListeners changeListeners = new StudentChangeListeners();
+        studentService = new StudentService(new ChangePublishingStudentDao(new StudentDaoImpl(true), changeListeners),
+            objectMapper, meterRegistry);
+        cache = new StudentResponseCache(studentService, objectMapper, meterRegistry, changeListeners);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(cache, "gzipMinBytes", 0);
+        cache.start();
+    }
+
+    @Test
+    void writesInvalidateOnlyTheAffectedEntries() throws IOException {
+        StudentResponseCache.Representation list = list(null, false);
+        StudentResponseCache.Representation first = student(1);
+        StudentResponseCache.Representation second = student(2);
+        assertThat(objectMapper.readTree(list.body())).isEqualTo(objectMapper.valueToTree(studentService.findAllStudents()));
+
+        assertThat(list(null, false).body()).isSameAs(list.body());
+        assertThat(student(1).body()).isSameAs(first.body());
+
+        studentService.updateStudent(1, new Student(null, "Tên mới", 30, Student.Gender.NU));
+
+        StudentResponseCache.Representation updated = student(1);
+        assertThat(updated.etag()).isNotEqualTo(first.etag());
+        assertThat(objectMapper.readValue(updated.body(), Student.class).getName()).isEqualTo("Tên mới");
+        assertThat(student(2).body()).isSameAs(second.body());
+        assertThat(list(null, false).etag()).isNotEqualTo(list.etag());
+
+        assertThat(meterRegistry.counter("student.response_cache.requests", "result", "hit").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("student.response_cache.requests", "result", "miss").count()).isEqualTo(5);
+        assertThatThrownBy(() -> student(999)).hasMessageContaining("999");
+    }
+
+    @Test
+    void writeDropsEntriesBeforeTheNextRead() {
+        double empty = cachedBytes();
+        list(null, false);
+        list(Student.Gender.NU, false);
+        int studentSize = student(2).body().length;
+        student(1);
+
+        studentService.updateStudent(1, new Student(null, "Tên mới", 30, Student.Gender.NU));
+
+        // Chỉ còn entry của student 2, không cần request nào đọc lại
+        assertThat(cachedBytes() - empty).isEqualTo(studentSize);
+    }
+
+    @Test
+    void gzipVariantHasItsOwnETagAndSameContent() throws IOException {
+        StudentResponseCache.Representation plain = list(Student.Gender.NAM, false);
+        StudentResponseCache.Representation gzip = list(Student.Gender.NAM, true);
+
+        assertThat(gzip.gzip()).isTrue();
+        assertThat(gzip.etag()).isEqualTo(plain.etag().replaceAll("\"$", "-gzip\""));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.body()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.body());
+        }
+        assertThat(list(Student.Gender.NAM, true).body()).isSameAs(gzip.body());
+    }
+
+    @Test
+    void smallBodiesKeepTheGzipETagWithoutEncoding() {
+        ReflectionTestUtils.setField(cache, "gzipMinBytes", Integer.MAX_VALUE);
+
+        StudentResponseCache.Representation small = cache.student(studentService.studentETag(1), 1, true);
+
+        assertThat(small.gzip()).isFalse();
+        assertThat(small.etag()).isEqualTo(StudentResponseCache.etagFor(studentService.studentETag(1), true));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesAboveTheByteLimit() {
+        int entrySize = student(1).body().length;
+        ReflectionTestUtils.setField(cache, "maxBytes", (long) entrySize * 2 + 1);
+
+        StudentResponseCache.Representation first = student(1);
+        student(2);
+        student(1);
+        student(3);
+
+        assertThat(student(1).body()).isSameAs(first.body());
+        assertThat(meterRegistry.counter("student.response_cache.evictions").count()).isEqualTo(1);
+    }
+
+    /**
+     * Giống controller: đọc ETag trước rồi mới vào cache
+     */
+    private StudentResponseCache.Representation list(Student.Gender gender, boolean gzip) {
+        return cache.students(studentService.collectionETag(), gender, null, null, gzip);
+    }
+
+    private StudentResponseCache.Representation student(Integer id) {
+        return cache.student(studentService.studentETag(id), id, false);
+    }
+
+    private double cachedBytes() {
+        return meterRegistry.get("student.response_cache.bytes").gauge().value();
+    }
+}
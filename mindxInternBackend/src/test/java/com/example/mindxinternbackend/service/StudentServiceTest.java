@@ -0,0 +1,98 @@
+package com.example.mindxinternbackend.service;
+
+import com.example.mindxinternbackend.dao.StudentDaoImpl;
+import com.example.mindxinternbackend.dto.StudentBatchOperation;
+import com.example.mindxinternbackend.dto.StudentBatchOperation.Action;
+import com.example.mindxinternbackend.dto.StudentBatchResult;
+import com.example.mindxinternbackend.entity.Student;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StudentServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StudentService service(StudentDaoImpl dao) {
+        return new StudentService(dao, objectMapper, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void exportWritesOneJsonObjectPerLine() throws IOException {
+        StudentService service = service(new StudentDaoImpl(true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportStudents(out);
+
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertThat(ndjson).endsWith("}\n").doesNotContain("\r").doesNotContain("\n\n");
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(3);
+        for (int i = 0; i < lines.length; i++) {
+            Student student = objectMapper.readValue(lines[i], Student.class);
+            assertThat(student).isEqualTo(service.findAllStudents().get(i));
+        }
+    }
+
+    @Test
+    void exportOfEmptyStoreWritesNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service(new StudentDaoImpl(false)).exportStudents(out);
+
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void batchReportsEachItemIndependently() {
+        StudentDaoImpl dao = new StudentDaoImpl(true);
+        StudentService service = service(dao);
+        List<StudentBatchOperation> operations = new ArrayList<>();
+        operations.add(new StudentBatchOperation(Action.CREATE, null, new Student(null, "Mới", 20, Student.Gender.NU)));
+        operations.add(new StudentBatchOperation(Action.CREATE, null, new Student(null, "Quá nhỏ", 10, Student.Gender.NAM)));
+        operations.add(new StudentBatchOperation(Action.UPDATE, 1, new Student(null, "Sửa", 30, Student.Gender.NAM)));
+        operations.add(new StudentBatchOperation(Action.UPDATE, 99, new Student(null, "Không có", 30, Student.Gender.NAM)));
+        operations.add(new StudentBatchOperation(Action.UPDATE, null, new Student(null, "Thiếu id", 30, Student.Gender.NAM)));
+        operations.add(new StudentBatchOperation(null, 2, null));
+        operations.add(null);
+        operations.add(new StudentBatchOperation(Action.DELETE, 2, null));
+
+        List<StudentBatchResult> results = service.applyBatch(operations);
+
+        assertThat(results).extracting(StudentBatchResult::getIndex).containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+        assertThat(results).extracting(StudentBatchResult::isSuccess)
+            .containsExactly(true, false, true, false, false, false, false, true);
+        assertThat(results.get(0).getId()).isEqualTo(4);
+        assertThat(results.get(1).getMessage()).isEqualTo("Tuổi phải từ 18 đến 50.");
+        assertThat(results.get(3).getId()).isEqualTo(99);
+        assertThat(results.get(4).getMessage()).isEqualTo("Thiếu id.");
+        assertThat(results.get(5).getMessage()).isEqualTo("Thiếu action.");
+        assertThat(results.get(6).getMessage()).isEqualTo("Thiếu action.");
+
+        assertThat(dao.findAll()).extracting(Student::getName).containsExactly("Sửa", "Nguyễn Thu Ngọc", "Mới");
+    }
+
+    @Test
+    void batchRejectsEmptyAndOversizedRequests() {
+        StudentDaoImpl dao = new StudentDaoImpl(true);
+        StudentService service = service(dao);
+        List<StudentBatchOperation> oversized = Collections.nCopies(StudentService.MAX_BATCH_SIZE + 1,
+            new StudentBatchOperation(Action.CREATE, null, new Student(null, "X", 20, Student.Gender.NU)));
+
+        assertThatThrownBy(() -> service.applyBatch(oversized))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(String.valueOf(StudentService.MAX_BATCH_SIZE));
+        assertThatThrownBy(() -> service.applyBatch(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThat(dao.findAll()).hasSize(3);
+    }
+}
@@ -0,0 +1,15 @@
+package scratch;
+import com.example.mindxinternbackend.dao.StudentDaoImpl;
+import com.example.mindxinternbackend.service.StudentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+class ScratchTest {
+    @Test
+    void run() throws Exception {
+        StudentService s = new StudentService(new StudentDaoImpl(), new ObjectMapper(), new io.micrometer.core.instrument.simple.SimpleMeterRegistry());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        s.exportStudents(out);
+        System.out.println("OUT[" + out.toString("UTF-8") + "]");
+    }
+}